@@ -6,22 +6,130 @@ CREATE DATABASE IF NOT EXISTS test
 USE cosmoport;
 
 DROP TABLE IF EXISTS ship;
+DROP TABLE IF EXISTS ship_change;
+DROP TABLE IF EXISTS ship_change_horizon;
 
+-- Partitioned by production year: yearly partitions for recent years, p_old for everything
+-- earlier and p_future for years without a partition yet. Every unique key of a partitioned table
+-- must contain the partitioning column, hence the primary key (id, prodDate); ids stay unique
+-- through AUTO_INCREMENT.
 CREATE TABLE ship
 (
     id       BIGINT(20)  NOT NULL AUTO_INCREMENT,
     name     VARCHAR(50) NULL,
     planet   VARCHAR(50) NULL,
     shipType VARCHAR(9)  NULL,
-    prodDate date        NULL,
+    prodDate date        NOT NULL,
     isUsed   BIT(1)      NULL,
     speed    DOUBLE      NULL,
     crewSize INT(4)      NULL,
     rating   DOUBLE      NULL,
-    PRIMARY KEY (id)
+    version  BIGINT(20)  NOT NULL DEFAULT 0,
+    PRIMARY KEY (id, prodDate),
+    KEY ship_prodDate (prodDate)
 )
     ENGINE = InnoDB
-    DEFAULT CHARACTER SET = utf8;
+    DEFAULT CHARACTER SET = utf8
+    PARTITION BY RANGE (YEAR(prodDate)) (
+        PARTITION p_old VALUES LESS THAN (2990),
+        PARTITION p2990 VALUES LESS THAN (2991),
+        PARTITION p2991 VALUES LESS THAN (2992),
+        PARTITION p2992 VALUES LESS THAN (2993),
+        PARTITION p2993 VALUES LESS THAN (2994),
+        PARTITION p2994 VALUES LESS THAN (2995),
+        PARTITION p2995 VALUES LESS THAN (2996),
+        PARTITION p2996 VALUES LESS THAN (2997),
+        PARTITION p2997 VALUES LESS THAN (2998),
+        PARTITION p2998 VALUES LESS THAN (2999),
+        PARTITION p2999 VALUES LESS THAN (3000),
+        PARTITION p3000 VALUES LESS THAN (3001),
+        PARTITION p3001 VALUES LESS THAN (3002),
+        PARTITION p3002 VALUES LESS THAN (3003),
+        PARTITION p3003 VALUES LESS THAN (3004),
+        PARTITION p3004 VALUES LESS THAN (3005),
+        PARTITION p3005 VALUES LESS THAN (3006),
+        PARTITION p3006 VALUES LESS THAN (3007),
+        PARTITION p3007 VALUES LESS THAN (3008),
+        PARTITION p3008 VALUES LESS THAN (3009),
+        PARTITION p3009 VALUES LESS THAN (3010),
+        PARTITION p3010 VALUES LESS THAN (3011),
+        PARTITION p3011 VALUES LESS THAN (3012),
+        PARTITION p3012 VALUES LESS THAN (3013),
+        PARTITION p3013 VALUES LESS THAN (3014),
+        PARTITION p3014 VALUES LESS THAN (3015),
+        PARTITION p3015 VALUES LESS THAN (3016),
+        PARTITION p3016 VALUES LESS THAN (3017),
+        PARTITION p3017 VALUES LESS THAN (3018),
+        PARTITION p3018 VALUES LESS THAN (3019),
+        PARTITION p3019 VALUES LESS THAN (3020),
+        PARTITION p3020 VALUES LESS THAN (3021),
+        PARTITION p_future VALUES LESS THAN MAXVALUE
+        );
+
+DROP PROCEDURE IF EXISTS add_ship_partition;
+DROP PROCEDURE IF EXISTS merge_ship_partitions;
+
+DELIMITER //
+
+-- Splits a partition for the year after the last yearly one off p_future.
+CREATE PROCEDURE add_ship_partition()
+BEGIN
+    DECLARE next_year INT;
+    SELECT MAX(CAST(PARTITION_DESCRIPTION AS UNSIGNED))
+    INTO next_year
+    FROM information_schema.PARTITIONS
+    WHERE TABLE_SCHEMA = DATABASE()
+      AND TABLE_NAME = 'ship'
+      AND PARTITION_DESCRIPTION <> 'MAXVALUE';
+    SET @ddl = CONCAT('ALTER TABLE ship REORGANIZE PARTITION p_future INTO (',
+                      'PARTITION p', next_year, ' VALUES LESS THAN (', next_year + 1, '), ',
+                      'PARTITION p_future VALUES LESS THAN MAXVALUE)');
+    PREPARE statement FROM @ddl;
+    EXECUTE statement;
+    DEALLOCATE PREPARE statement;
+END //
+
+-- Folds the yearly partitions before before_year into p_old.
+CREATE PROCEDURE merge_ship_partitions(IN before_year INT)
+BEGIN
+    DECLARE merged TEXT;
+    SELECT GROUP_CONCAT(PARTITION_NAME ORDER BY PARTITION_ORDINAL_POSITION)
+    INTO merged
+    FROM information_schema.PARTITIONS
+    WHERE TABLE_SCHEMA = DATABASE()
+      AND TABLE_NAME = 'ship'
+      AND PARTITION_DESCRIPTION <> 'MAXVALUE'
+      AND CAST(PARTITION_DESCRIPTION AS UNSIGNED) <= before_year;
+    IF merged <> 'p_old' THEN
+        SET @ddl = CONCAT('ALTER TABLE ship REORGANIZE PARTITION ', merged,
+                          ' INTO (PARTITION p_old VALUES LESS THAN (', before_year, '))');
+        PREPARE statement FROM @ddl;
+        EXECUTE statement;
+        DEALLOCATE PREPARE statement;
+    END IF;
+END //
+
+DELIMITER ;
+
+CREATE TABLE ship_change
+(
+    seq      BIGINT(20)  NOT NULL AUTO_INCREMENT,
+    shipId   BIGINT(20)  NOT NULL,
+    deleted  BIT(1)      NOT NULL,
+    createdAt BIGINT(20) NOT NULL DEFAULT 0,
+    PRIMARY KEY (seq),
+    KEY ship_change_shipId (shipId, seq)
+)
+    ENGINE = InnoDB;
+
+-- Highest tombstone removed by compaction, change cursors below it are refused.
+CREATE TABLE ship_change_horizon
+(
+    seq BIGINT(20) NOT NULL
+)
+    ENGINE = InnoDB;
+
+INSERT INTO ship_change_horizon VALUES (0);
 
 insert into ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating)
 values ('Orion III', 'Mars', 'MERCHANT', '2995-01-01', true, 0.82, 617, 1.31)
@@ -64,3 +172,8 @@ values ('Orion III', 'Mars', 'MERCHANT', '2995-01-01', true, 0.82, 617, 1.31)
      , ('Nostromo', 'Saturn', 'MERCHANT', '2991-01-01', true, 0.31, 1967, 0.43)
      , ('Tardis', 'Jupiter', 'MERCHANT', '3016-01-01', false, 0.86, 4871, 17.20)
      , ('Star Destroyer', 'Mercury', 'MILITARY', '3017-01-01', false, 0.92, 4880, 24.53);
+
+insert into ship_change(shipId, deleted)
+select id, false
+from ship
+order by id;
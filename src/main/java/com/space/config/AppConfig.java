@@ -1,12 +1,26 @@
 package com.space.config;
 
+import com.space.model.Ship;
+import com.zaxxer.hikari.HikariDataSource;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.expiry.ExpiryPolicy;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.data.repository.config.BootstrapMode;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
@@ -15,8 +29,14 @@ import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
@@ -24,37 +44,99 @@ import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.
 @Configuration
 @EnableTransactionManagement
 @ComponentScan("com.space.service")
-@EnableJpaRepositories(basePackages = "com.space.repositoryDAO")
+@EnableJpaRepositories(basePackages = "com.space.repositoryDAO", bootstrapMode = BootstrapMode.LAZY)
+@PropertySource("classpath:cosmoport.properties")
 public class AppConfig {
 
+    private static final String DB_URL = "jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC&useCursorFetch=true";
+
+    @Autowired
+    private Environment env;
+
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+    public static StartupTimeline startupTimeline(Environment environment) {
+        return new StartupTimeline(environment.getRequiredProperty("startup.targetMillis", Long.class));
+    }
+
+    /**
+     * Hibernate boots on a thread of its own while the rest of both contexts starts; the first
+     * use of the EntityManagerFactory waits for it to finish.
+     */
+    @Bean
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(StartupTimeline startupTimeline) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
+        em.setBootstrapExecutor(startupTimeline.phaseExecutor("jpaBootstrap"));
         em.setDataSource(dataSource());
         em.setPackagesToScan("com.space.model");
 
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
         em.setJpaVendorAdapter(vendorAdapter);
         em.setJpaProperties(additionalProperties());
+        em.getJpaPropertyMap().put(ConfigSettings.CACHE_MANAGER, cacheManager());
 
         return em;
     }
 
+    /**
+     * With more than one shard every shard database gets a pool of its own; the heavy and light
+     * pools are only split for a single database.
+     */
     @Profile("prod")
     @Bean
     public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+        int shardCount = env.getRequiredProperty("shard.count", Integer.class);
+        if (shardCount > 1) {
+            List<DataSource> shards = new ArrayList<>();
+            for (int shard = 0; shard < shardCount; shard++) {
+                shards.add(pool("shard-" + shard, env.getRequiredProperty("shard.url").replace("{shard}", String.valueOf(shard)),
+                        env.getRequiredProperty("db.pool.size", Integer.class)));
+            }
+            return new ShardRoutingDataSource(shards);
+        }
+        return new RequestClassRoutingDataSource(pool("heavy", DB_URL, env.getRequiredProperty("db.pool.heavySize", Integer.class)),
+                pool("light", DB_URL, env.getRequiredProperty("db.pool.size", Integer.class)));
+    }
+
+    private HikariDataSource pool(String name, String url, int size) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("cosmoport-" + name);
         dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/cosmoport?serverTimezone=UTC");
+        dataSource.setJdbcUrl(url);
         dataSource.setUsername("root");
         dataSource.setPassword("root");
+        dataSource.setMaximumPoolSize(size);
+        dataSource.setMinimumIdle(size);
+        dataSource.setConnectionTimeout(env.getRequiredProperty("db.pool.connectionTimeout", Long.class));
         return dataSource;
     }
 
+    /**
+     * Sharded tests get one in-memory database per shard. Only shard 0 keeps the ships of test.sql,
+     * the others start empty with their own id range.
+     */
     @Profile("dev")
     @Bean(name = "dataSource")
     public DataSource dataSourceForTests() {
+        int shardCount = env.getRequiredProperty("shard.count", Integer.class);
+        if (shardCount > 1) {
+            long idRange = env.getRequiredProperty("shard.idRange", Long.class);
+            List<DataSource> shards = new ArrayList<>();
+            for (int shard = 0; shard < shardCount; shard++) {
+                DataSource dataSource = embeddedDatabase();
+                if (shard > 0) {
+                    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+                    jdbcTemplate.execute("DELETE FROM ship");
+                    jdbcTemplate.execute("DELETE FROM ship_change");
+                    jdbcTemplate.execute("ALTER TABLE ship ALTER COLUMN id RESTART WITH " + (shard * idRange + 1));
+                }
+                shards.add(dataSource);
+            }
+            return new ShardRoutingDataSource(shards);
+        }
+        return embeddedDatabase();
+    }
 
+    private DataSource embeddedDatabase() {
         return new EmbeddedDatabaseBuilder()
                 .generateUniqueName(true)
                 .setType(H2)
@@ -64,6 +146,31 @@ public class AppConfig {
                 .build();
     }
 
+    /**
+     * Heap-only regions of the second-level cache, bounded in entries and time to live. The update
+     * timestamps region must outlive every cached query result, so it never expires.
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        region(cacheManager, Ship.class.getName(), env.getRequiredProperty("cache.ship.size", Long.class),
+                ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(env.getRequiredProperty("cache.ship.ttl", Long.class))));
+        region(cacheManager, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, env.getRequiredProperty("cache.query.size", Long.class),
+                ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(env.getRequiredProperty("cache.query.ttl", Long.class))));
+        region(cacheManager, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, 1000,
+                ExpiryPolicyBuilder.noExpiration());
+        return cacheManager;
+    }
+
+    private static void region(CacheManager cacheManager, String name, long size, ExpiryPolicy<Object, Object> expiry) {
+        if (cacheManager.getCache(name) == null) {
+            cacheManager.createCache(name, Eh107Configuration.fromEhcacheCacheConfiguration(
+                    CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(size))
+                            .withExpiry(expiry)));
+        }
+    }
+
     @Bean
     public PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
         JpaTransactionManager transactionManager = new JpaTransactionManager();
@@ -80,6 +187,12 @@ public class AppConfig {
     private Properties additionalProperties() {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.MySQL5Dialect");
+        properties.setProperty("hibernate.criteria.literal_handling_mode", "BIND");
+        properties.setProperty("hibernate.generate_statistics", "true");
+        properties.setProperty("hibernate.cache.use_second_level_cache", "true");
+        properties.setProperty("hibernate.cache.use_query_cache", "true");
+        properties.setProperty("hibernate.cache.region.factory_class", "jcache");
+        properties.setProperty(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
 
         return properties;
     }
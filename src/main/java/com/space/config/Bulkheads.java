@@ -0,0 +1,115 @@
+package com.space.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Separate capacity for each {@link RequestClass}: a request holds a permit of its class's
+ * partition while it is handled, waiting at most {@code maxWait} milliseconds for one before it
+ * gets 503. Heavy queries can fill their own partition but never take the threads of point
+ * lookups and writes. The class is bound to the request thread so that
+ * {@link RequestClassRoutingDataSource} hands out connections from the matching pool.
+ */
+public class Bulkheads implements HandlerInterceptor {
+
+    private static final String PARTITION_ATTRIBUTE = Bulkheads.class.getName() + ".partition";
+
+    private final Map<RequestClass, Partition> partitions = new EnumMap<>(RequestClass.class);
+    private final long maxWait;
+
+    public Bulkheads(int heavyConcurrency, int lightConcurrency, long maxWait) {
+        partitions.put(RequestClass.HEAVY, new Partition(heavyConcurrency));
+        partitions.put(RequestClass.LIGHT, new Partition(lightConcurrency));
+        this.maxWait = maxWait;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws InterruptedException {
+        RequestClass requestClass = RequestClass.of(request);
+        Partition partition = partitions.get(requestClass);
+        if (!partition.acquire(maxWait)) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return false;
+        }
+        request.setAttribute(PARTITION_ATTRIBUTE, partition);
+        RequestClass.bind(requestClass);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Partition partition = (Partition) request.getAttribute(PARTITION_ATTRIBUTE);
+        if (partition != null) {
+            request.removeAttribute(PARTITION_ATTRIBUTE);
+            RequestClass.unbind();
+            partition.release();
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        for (Map.Entry<RequestClass, Partition> entry : partitions.entrySet()) {
+            statistics.put(entry.getKey().name().toLowerCase(), entry.getValue().getStatistics());
+        }
+        return statistics;
+    }
+
+    private static class Partition {
+
+        private final int size;
+        private final Semaphore permits;
+        private final AtomicInteger maxActive = new AtomicInteger();
+        private final AtomicLong accepted = new AtomicLong();
+        private final AtomicLong waited = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        Partition(int size) {
+            this.size = size;
+            this.permits = new Semaphore(size);
+        }
+
+        boolean acquire(long maxWait) throws InterruptedException {
+            if (!permits.tryAcquire()) {
+                waited.incrementAndGet();
+                if (!permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                    rejected.incrementAndGet();
+                    return false;
+                }
+            }
+            accepted.incrementAndGet();
+            maxActive.accumulateAndGet(size - permits.availablePermits(), Math::max);
+            return true;
+        }
+
+        void release() {
+            permits.release();
+        }
+
+        Map<String, Object> getStatistics() {
+            Map<String, Object> statistics = new LinkedHashMap<>();
+            int active = size - permits.availablePermits();
+            statistics.put("size", size);
+            statistics.put("active", active);
+            statistics.put("maxActive", maxActive.get());
+            statistics.put("saturation", (double) active / size);
+            statistics.put("queued", permits.getQueueLength());
+            statistics.put("accepted", accepted.get());
+            statistics.put("waited", waited.get());
+            statistics.put("rejected", rejected.get());
+            return statistics;
+        }
+    }
+}
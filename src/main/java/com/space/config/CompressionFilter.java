@@ -0,0 +1,399 @@
+package com.space.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses REST responses with gzip or deflate, whichever the client accepts (gzip wins a tie).
+ * The first {@code threshold} bytes are held back: a response that ends below it goes out as is,
+ * a larger one switches to compression and streams from then on without buffering the rest.
+ * A compressed response is not byte for byte the entity its ETag names, so the ETag turns weak.
+ */
+public class CompressionFilter extends OncePerRequestFilter {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final int threshold;
+    private final int level;
+
+    private final AtomicLong compressedResponses = new AtomicLong();
+    private final AtomicLong skippedResponses = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    private final AtomicLong compressionNanos = new AtomicLong();
+
+    public CompressionFilter(int threshold, int level) {
+        this.threshold = threshold;
+        this.level = level;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/rest/")
+                || request.getRequestURI().startsWith(request.getContextPath() + "/rest/ships/events")
+                || request.getRequestURI().startsWith(request.getContextPath() + "/rest/ships/stream")
+                || "HEAD".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String encoding = negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (encoding == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        CompressingResponse compressingResponse = new CompressingResponse(response, encoding);
+        try {
+            filterChain.doFilter(request, compressingResponse);
+        } catch (Throwable e) {
+            // What was written is still ended properly and the Deflater released.
+            try {
+                compressingResponse.finish();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        compressingResponse.finish();
+    }
+
+    public Map<String, Object> getStatistics() {
+        long in = bytesIn.get();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("threshold", threshold);
+        result.put("level", level);
+        result.put("compressedResponses", compressedResponses.get());
+        result.put("skippedResponses", skippedResponses.get());
+        result.put("bytesIn", in);
+        result.put("bytesOut", bytesOut.get());
+        result.put("compressionRatio", in == 0 ? 0.0 : (double) bytesOut.get() / in);
+        result.put("compressionCpuMillis", compressionNanos.get() / 1_000_000);
+        return result;
+    }
+
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        // Codings listed by name take their own quality, "*" only covers the ones left out.
+        Double gzip = null;
+        Double deflate = null;
+        Double any = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim().toLowerCase();
+            double quality = 1;
+            for (int i = 1; i < tokens.length; i++) {
+                String parameter = tokens[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = quality;
+            } else if (coding.equals("deflate")) {
+                deflate = quality;
+            } else if (coding.equals("*")) {
+                any = quality;
+            }
+        }
+        double gzipQuality = gzip != null ? gzip : any != null ? any : 0;
+        double deflateQuality = deflate != null ? deflate : any != null ? any : 0;
+        if (gzipQuality > 0 && gzipQuality >= deflateQuality) {
+            return "gzip";
+        }
+        return deflateQuality > 0 ? "deflate" : null;
+    }
+
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private class CompressingResponse extends HttpServletResponseWrapper {
+
+        private final String encoding;
+        private ThresholdOutputStream outputStream;
+        private PrintWriter writer;
+        private boolean compressing;
+
+        CompressingResponse(HttpServletResponse response, String encoding) {
+            super(response);
+            this.encoding = encoding;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            return stream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (outputStream != null && writer == null) {
+                throw new IllegalStateException("getOutputStream() has already been called");
+            }
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(stream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.setHeader(name, weakened(name, value));
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.addHeader(name, weakened(name, value));
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (outputStream != null) {
+                outputStream.flush();
+            }
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (outputStream != null) {
+                outputStream.close();
+            }
+        }
+
+        private ThresholdOutputStream stream() {
+            if (outputStream == null) {
+                outputStream = new ThresholdOutputStream(this);
+            }
+            return outputStream;
+        }
+
+        void startCompression() {
+            compressing = true;
+            super.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+            String eTag = getHeader(HttpHeaders.ETAG);
+            if (eTag != null) {
+                super.setHeader(HttpHeaders.ETAG, weakened(HttpHeaders.ETAG, eTag));
+            }
+        }
+
+        private String weakened(String name, String value) {
+            if (compressing && HttpHeaders.ETAG.equalsIgnoreCase(name) && value != null && !value.startsWith("W/")) {
+                return "W/" + value;
+            }
+            return value;
+        }
+
+        private boolean compressible() {
+            int status = getStatus();
+            return status != HttpStatus.NO_CONTENT.value() && status != HttpStatus.NOT_MODIFIED.value()
+                    && !containsHeader(HttpHeaders.CONTENT_ENCODING);
+        }
+    }
+
+    private class ThresholdOutputStream extends ServletOutputStream {
+
+        private final CompressingResponse response;
+        private byte[] buffer = new byte[Math.max(threshold, 1)];
+        private int buffered;
+        private OutputStream compressed;
+        private boolean closed;
+
+        ThresholdOutputStream(CompressingResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (compressed == null && buffer != null && buffered + length <= threshold) {
+                System.arraycopy(bytes, offset, buffer, buffered, length);
+                buffered += length;
+                return;
+            }
+            if (compressed == null && buffer != null) {
+                startCompression();
+            }
+            if (compressed == null) {
+                response.getResponse().getOutputStream().write(bytes, offset, length);
+                return;
+            }
+            compress(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (compressed != null) {
+                long start = cpuTime();
+                compressed.flush();
+                compressionNanos.addAndGet(cpuTime() - start);
+            } else if (buffer == null) {
+                response.getResponse().getOutputStream().flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (compressed != null) {
+                long start = cpuTime();
+                compressed.close();
+                compressionNanos.addAndGet(cpuTime() - start);
+                compressedResponses.incrementAndGet();
+                return;
+            }
+            if (buffer != null) {
+                skippedResponses.incrementAndGet();
+                if (buffered > 0) {
+                    response.getResponse().setContentLength(buffered);
+                    response.getResponse().getOutputStream().write(buffer, 0, buffered);
+                }
+                buffer = null;
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            if (buffer != null) {
+                return true;
+            }
+            try {
+                return response.getResponse().getOutputStream().isReady();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                response.getResponse().getOutputStream().setWriteListener(writeListener);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void startCompression() throws IOException {
+            byte[] pending = buffer;
+            int pendingLength = buffered;
+            buffer = null;
+            if (!response.compressible()) {
+                response.getResponse().getOutputStream().write(pending, 0, pendingLength);
+                return;
+            }
+            response.startCompression();
+            OutputStream target = new CountingOutputStream(response.getResponse().getOutputStream());
+            if (response.encoding.equals("gzip")) {
+                compressed = new GZIPOutputStream(target, 8192, true) {
+                    {
+                        def.setLevel(level);
+                    }
+                };
+            } else {
+                Deflater deflater = new Deflater(level);
+                compressed = new DeflaterOutputStream(target, deflater, 8192, true) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            deflater.end();
+                        }
+                    }
+                };
+            }
+            compress(pending, 0, pendingLength);
+        }
+
+        private void compress(byte[] bytes, int offset, int length) throws IOException {
+            long start = cpuTime();
+            compressed.write(bytes, offset, length);
+            compressionNanos.addAndGet(cpuTime() - start);
+            bytesIn.addAndGet(length);
+        }
+    }
+
+    private class CountingOutputStream extends OutputStream {
+
+        private final OutputStream target;
+
+        CountingOutputStream(OutputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+            bytesOut.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            target.write(bytes, offset, length);
+            bytesOut.addAndGet(length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+    }
+}
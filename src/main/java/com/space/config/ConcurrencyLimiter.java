@@ -0,0 +1,107 @@
+package com.space.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps the number of REST requests handled at once and adapts the cap to observed latency (AIMD):
+ * a response slower than {@code latencyTarget} cuts the limit by {@code backoff}, at most once per
+ * round trip, while a fast response with the limit half used or more raises it by one. Requests
+ * over the limit get 503 with {@code Retry-After} at once instead of waiting for a thread or a
+ * connection, so a slow database sheds load rather than piling up requests.
+ */
+public class ConcurrencyLimiter implements HandlerInterceptor {
+
+    static final String START_ATTRIBUTE = ConcurrencyLimiter.class.getName() + ".start";
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoff;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private boolean decreased;
+    private long lastDecrease;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong slowResponses = new AtomicLong();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyTarget, double backoff) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(latencyTarget);
+        this.backoff = backoff;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.incrementAndGet();
+                response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                maxInFlight.accumulateAndGet(current + 1, Math::max);
+                break;
+            }
+        }
+        accepted.incrementAndGet();
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start == null) {
+            return;
+        }
+        request.removeAttribute(START_ATTRIBUTE);
+        int used = inFlight.getAndDecrement();
+        onSample((Long) start, System.nanoTime(), used);
+    }
+
+    private synchronized void onSample(long start, long end, int used) {
+        if (end - start > latencyTargetNanos) {
+            slowResponses.incrementAndGet();
+            if (!decreased || start - lastDecrease > 0) {
+                limit = Math.max(minLimit, limit * backoff);
+                decreased = true;
+                lastDecrease = end;
+            }
+        } else if (used * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("limit", getLimit());
+        statistics.put("inFlight", inFlight.get());
+        statistics.put("maxInFlight", maxInFlight.get());
+        statistics.put("accepted", accepted.get());
+        statistics.put("rejected", rejected.get());
+        statistics.put("slowResponses", slowResponses.get());
+        return statistics;
+    }
+}
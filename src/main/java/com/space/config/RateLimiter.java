@@ -0,0 +1,69 @@
+package com.space.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client rate limits on the REST API. A client is its {@code X-API-Key} header if the key is
+ * one of {@code apiKeys}, otherwise its remote address, so made-up keys neither escape the limit nor
+ * fill the bucket store. Each client has a separate budget per {@link RequestClass}, so heavy
+ * scans cannot use up the budget of point lookups. Requests over budget get 429 with
+ * {@code Retry-After}.
+ */
+public class RateLimiter implements HandlerInterceptor {
+
+    public static final String API_KEY_HEADER = "X-API-Key";
+
+    private final Map<RequestClass, TokenBuckets> buckets = new EnumMap<>(RequestClass.class);
+    private final Map<RequestClass, AtomicLong> rejected = new EnumMap<>(RequestClass.class);
+    private final Set<String> apiKeys;
+
+    public RateLimiter(TokenBuckets heavy, TokenBuckets light, Set<String> apiKeys) {
+        this.apiKeys = apiKeys;
+        buckets.put(RequestClass.HEAVY, heavy);
+        buckets.put(RequestClass.LIGHT, light);
+        for (RequestClass requestClass : RequestClass.values()) {
+            rejected.put(requestClass, new AtomicLong());
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestClass requestClass = RequestClass.of(request);
+        long wait = buckets.get(requestClass).tryAcquire(client(request), System.nanoTime());
+        if (wait == 0) {
+            return true;
+        }
+        rejected.get(requestClass).incrementAndGet();
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString((wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1)));
+        return false;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        for (RequestClass requestClass : RequestClass.values()) {
+            Map<String, Object> classStatistics = new LinkedHashMap<>();
+            classStatistics.put("clients", buckets.get(requestClass).size());
+            classStatistics.put("rejected", rejected.get(requestClass).get());
+            classStatistics.put("overflows", buckets.get(requestClass).getOverflows());
+            statistics.put(requestClass.name().toLowerCase(), classStatistics);
+        }
+        return statistics;
+    }
+
+    private String client(HttpServletRequest request) {
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "addr:" + request.getRemoteAddr();
+    }
+}
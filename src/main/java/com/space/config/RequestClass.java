@@ -0,0 +1,66 @@
+package com.space.config;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Cost class of a REST request. Counting, listings filtered by a name or planet substring,
+ * streamed listings and deletes by filter scan the ship table and are {@code HEAVY}; point lookups,
+ * other writes and the rest are {@code LIGHT}.
+ * The class of the request being handled is bound to its thread, work outside a request is
+ * {@code LIGHT} unless it runs through {@link #run}.
+ */
+public enum RequestClass {
+    HEAVY,
+    LIGHT;
+
+    private static final ThreadLocal<RequestClass> CURRENT = new ThreadLocal<>();
+
+    public static RequestClass current() {
+        RequestClass requestClass = CURRENT.get();
+        return requestClass == null ? LIGHT : requestClass;
+    }
+
+    /**
+     * Runs the task on the current thread as work of this class, for a request that continues on
+     * another thread.
+     */
+    public void run(Runnable task) {
+        RequestClass previous = CURRENT.get();
+        bind(this);
+        try {
+            task.run();
+        } finally {
+            bind(previous);
+        }
+    }
+
+    static void bind(RequestClass requestClass) {
+        CURRENT.set(requestClass);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    public static RequestClass of(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if ("DELETE".equals(request.getMethod()) && path.equals("/rest/ships")) {
+            return HEAVY;
+        }
+        if (!"GET".equals(request.getMethod())) {
+            return LIGHT;
+        }
+        if (path.equals("/rest/ships/count") || path.equals("/rest/ships/stream")) {
+            return HEAVY;
+        }
+        if (path.equals("/rest/ships") && (hasValue(request, "name") || hasValue(request, "planet"))) {
+            return HEAVY;
+        }
+        return LIGHT;
+    }
+
+    private static boolean hasValue(HttpServletRequest request, String parameter) {
+        String value = request.getParameter(parameter);
+        return value != null && !value.isEmpty();
+    }
+}
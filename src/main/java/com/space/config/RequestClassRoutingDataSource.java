@@ -0,0 +1,48 @@
+package com.space.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One connection pool per {@link RequestClass}: connections go to the pool of the class bound to
+ * the current thread, so heavy scans can exhaust only their own pool.
+ */
+public class RequestClassRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final Map<RequestClass, HikariDataSource> pools = new EnumMap<>(RequestClass.class);
+
+    public RequestClassRoutingDataSource(HikariDataSource heavy, HikariDataSource light) {
+        pools.put(RequestClass.HEAVY, heavy);
+        pools.put(RequestClass.LIGHT, light);
+        setTargetDataSources(new LinkedHashMap<>(pools));
+        setDefaultTargetDataSource(light);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return RequestClass.current();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        for (Map.Entry<RequestClass, HikariDataSource> entry : pools.entrySet()) {
+            HikariDataSource pool = entry.getValue();
+            Map<String, Object> poolStatistics = new LinkedHashMap<>();
+            poolStatistics.put("size", pool.getMaximumPoolSize());
+            HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+            if (bean != null) {
+                poolStatistics.put("active", bean.getActiveConnections());
+                poolStatistics.put("idle", bean.getIdleConnections());
+                poolStatistics.put("waiting", bean.getThreadsAwaitingConnection());
+                poolStatistics.put("saturation", (double) bean.getActiveConnections() / pool.getMaximumPoolSize());
+            }
+            statistics.put(entry.getKey().name().toLowerCase(), poolStatistics);
+        }
+        return statistics;
+    }
+}
@@ -0,0 +1,116 @@
+package com.space.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Records how startup time is spent: when each phase (root context, JPA bootstrap, web context)
+ * ended and how long it took, and how long each bean of the root context took from instantiation
+ * to the end of its initialization, dependencies included. Times are milliseconds since the JVM
+ * started. The timeline is logged whenever a context has been refreshed, as a warning once
+ * startup has taken longer than {@code targetMillis} (0 for no target).
+ */
+public class StartupTimeline implements InstantiationAwareBeanPostProcessor, ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupTimeline.class);
+    private static final int SLOWEST_BEANS = 20;
+
+    private final long targetMillis;
+    private final long jvmStartNanos = System.nanoTime()
+            - TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime());
+    private final long createdNanos = System.nanoTime();
+    private final List<Map<String, Object>> phases = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<String, Long> beanStarts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> beanDurations = new ConcurrentHashMap<>();
+
+    public StartupTimeline(long targetMillis) {
+        this.targetMillis = targetMillis;
+    }
+
+    /**
+     * A single-use executor whose task is recorded as a phase of its own.
+     */
+    public AsyncTaskExecutor phaseExecutor(String phase) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(phase + "-");
+        executor.setTaskDecorator(task -> () -> {
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                phase(phase, start, System.nanoTime());
+            }
+        });
+        return executor;
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+        beanStarts.putIfAbsent(beanName, System.nanoTime());
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Long start = beanStarts.remove(beanName);
+        if (start != null) {
+            beanDurations.put(beanName, System.nanoTime() - start);
+        }
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        long now = System.nanoTime();
+        if (event.getApplicationContext().getParent() == null) {
+            phase("rootContext", createdNanos, now);
+        } else {
+            long elapsed = System.currentTimeMillis() - event.getApplicationContext().getStartupDate();
+            phase("webContext", now - TimeUnit.MILLISECONDS.toNanos(elapsed), now);
+        }
+        if (targetMillis > 0 && TimeUnit.NANOSECONDS.toMillis(now - jvmStartNanos) > targetMillis) {
+            LOGGER.warn("Startup took longer than {} ms: {}", targetMillis, getTimeline());
+        } else {
+            LOGGER.info("Startup timeline: {}", getTimeline());
+        }
+    }
+
+    public Map<String, Object> getTimeline() {
+        Map<String, Object> timeline = new LinkedHashMap<>();
+        timeline.put("target", targetMillis);
+        timeline.put("phases", new ArrayList<>(phases));
+        Map<String, Object> beans = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : beanDurations.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(SLOWEST_BEANS)
+                .collect(Collectors.toList())) {
+            beans.put(entry.getKey(), TimeUnit.NANOSECONDS.toMillis(entry.getValue()));
+        }
+        timeline.put("slowestBeans", beans);
+        return timeline;
+    }
+
+    private void phase(String name, long startNanos, long endNanos) {
+        Map<String, Object> phase = new LinkedHashMap<>();
+        phase.put("name", name);
+        phase.put("end", TimeUnit.NANOSECONDS.toMillis(endNanos - jvmStartNanos));
+        phase.put("duration", TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos));
+        phases.add(phase);
+    }
+}
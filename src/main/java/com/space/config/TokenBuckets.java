@@ -0,0 +1,78 @@
+package com.space.config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets of {@code rate} requests per second and {@code burst} capacity, one per key, kept
+ * as a single "theoretical arrival time" each (GCRA): a check is one read and one compare-and-set.
+ * A bucket whose arrival time has passed is full, so it holds no information and is swept away
+ * once the store grows past {@code maxKeys}. Keys that still do not fit share one overflow bucket.
+ * A sweep walks every bucket, so it runs at most once per refill time of a bucket and by one
+ * caller at a time; new keys arriving in between go to the overflow bucket.
+ */
+public class TokenBuckets {
+
+    static final String OVERFLOW_KEY = "";
+    private static final long NEVER_SWEPT = Long.MIN_VALUE;
+
+    private final long interval;
+    private final long tolerance;
+    private final int maxKeys;
+    private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong overflows = new AtomicLong();
+    private final AtomicLong nextSweep = new AtomicLong(NEVER_SWEPT);
+
+    public TokenBuckets(double rate, int burst, int maxKeys) {
+        this.interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        this.tolerance = interval * (burst - 1);
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Takes a token from the key's bucket. Returns 0 if there was one, otherwise the nanoseconds
+     * until there will be.
+     */
+    public long tryAcquire(String key, long now) {
+        AtomicLong bucket = bucket(key, now);
+        while (true) {
+            long arrival = bucket.get();
+            long start = arrival - now > 0 ? arrival : now;
+            long wait = start - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, start + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    public long getOverflows() {
+        return overflows.get();
+    }
+
+    private AtomicLong bucket(String key, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxKeys) {
+            long due = nextSweep.get();
+            if ((due == NEVER_SWEPT || now - due >= 0) && nextSweep.compareAndSet(due, now + interval + tolerance)) {
+                buckets.values().removeIf(stale -> stale.get() - now <= 0);
+            }
+            if (buckets.size() >= maxKeys) {
+                overflows.incrementAndGet();
+                return buckets.computeIfAbsent(OVERFLOW_KEY, overflow -> new AtomicLong(now));
+            }
+        }
+        return buckets.computeIfAbsent(key, added -> new AtomicLong(now));
+    }
+}
@@ -0,0 +1,20 @@
+package com.space.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * REST responses are JSON, Smile or CBOR depending on the Accept header, so caches have to keep
+ * them apart by it. Added before the handler runs, so 304 answers carry it too.
+ */
+public class VaryByAccept implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return true;
+    }
+}
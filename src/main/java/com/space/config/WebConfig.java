@@ -2,26 +2,50 @@ package com.space.config;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.space.model.Ship;
+import com.space.model.ShipDeserializer;
+import com.space.model.ShipSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.CacheControl;
 import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
 import org.springframework.web.servlet.view.JstlView;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableWebMvc
 @ComponentScan("com.space.controller")
 public class WebConfig implements WebMvcConfigurer {
 
+    @Autowired
+    private Environment env;
 
     @Bean
     public ViewResolver internalResourceViewResolver() {
@@ -32,6 +56,78 @@ public class WebConfig implements WebMvcConfigurer {
         return bean;
     }
 
+    @Bean
+    public CompressionFilter compressionFilter() {
+        return new CompressionFilter(env.getRequiredProperty("compression.threshold", Integer.class),
+                env.getRequiredProperty("compression.level", Integer.class));
+    }
+
+    @Bean
+    public ConcurrencyLimiter concurrencyLimiter() {
+        return new ConcurrencyLimiter(env.getRequiredProperty("limiter.initialLimit", Integer.class),
+                env.getRequiredProperty("limiter.minLimit", Integer.class),
+                env.getRequiredProperty("limiter.maxLimit", Integer.class),
+                env.getRequiredProperty("limiter.latencyTarget", Long.class),
+                env.getRequiredProperty("limiter.backoff", Double.class));
+    }
+
+    @Bean
+    public RateLimiter rateLimiter() {
+        int maxClients = env.getRequiredProperty("ratelimit.maxClients", Integer.class);
+        return new RateLimiter(
+                new TokenBuckets(env.getRequiredProperty("ratelimit.heavy.rate", Double.class),
+                        env.getRequiredProperty("ratelimit.heavy.burst", Integer.class), maxClients),
+                new TokenBuckets(env.getRequiredProperty("ratelimit.light.rate", Double.class),
+                        env.getRequiredProperty("ratelimit.light.burst", Integer.class), maxClients),
+                new HashSet<>(Arrays.asList(env.getRequiredProperty("ratelimit.apiKeys", String[].class))));
+    }
+
+    @Bean
+    public Bulkheads bulkheads() {
+        return new Bulkheads(env.getRequiredProperty("bulkhead.heavy.maxConcurrent", Integer.class),
+                env.getRequiredProperty("bulkhead.light.maxConcurrent", Integer.class),
+                env.getRequiredProperty("bulkhead.maxWait", Long.class));
+    }
+
+    @Bean
+    public ObjectMapper jsonMapper() {
+        return configure(new ObjectMapper());
+    }
+
+    /**
+     * Writes streamed listings; at most this many are streamed at once, the others wait.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor streamExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("ship-stream-");
+        executor.setCorePoolSize(env.getRequiredProperty("ship.stream.threads", Integer.class));
+        executor.setMaxPoolSize(env.getRequiredProperty("ship.stream.threads", Integer.class));
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamExecutor())
+                .setDefaultTimeout(env.getRequiredProperty("ship.stream.timeout", Long.class));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(rateLimiter())
+                .addPathPatterns("/rest/**")
+                .excludePathPatterns("/rest/statistics/**");
+        registry.addInterceptor(concurrencyLimiter())
+                .addPathPatterns("/rest/**")
+                .excludePathPatterns("/rest/ships/events", "/rest/ships/stream", "/rest/statistics/**");
+        registry.addInterceptor(bulkheads())
+                .addPathPatterns("/rest/**")
+                .excludePathPatterns("/rest/ships/events", "/rest/ships/stream", "/rest/statistics/**");
+        registry.addInterceptor(new VaryByAccept())
+                .addPathPatterns("/rest/**")
+                .excludePathPatterns("/rest/ships/events", "/rest/ships/stream");
+    }
+
     @Override
     public void addViewControllers(ViewControllerRegistry registry) {
         registry.addViewController("/").setViewName("index");
@@ -39,14 +135,27 @@ public class WebConfig implements WebMvcConfigurer {
 
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/resources/**").addResourceLocations("/resources/");
+        registry.addResourceHandler("/resources/**").addResourceLocations("/resources/")
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
     }
 
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
-        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
-        converter.getObjectMapper().setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
-        converter.getObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
-        converters.add(converter);
+        converters.add(new MappingJackson2HttpMessageConverter(jsonMapper()));
+        converters.add(new MappingJackson2SmileHttpMessageConverter(configure(new ObjectMapper(new SmileFactory()))));
+        converters.add(new MappingJackson2CborHttpMessageConverter(configure(new ObjectMapper(new CBORFactory()))));
+        converters.add(new StringHttpMessageConverter(StandardCharsets.UTF_8));
+    }
+
+    private ObjectMapper configure(ObjectMapper objectMapper) {
+        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        objectMapper.registerModule(new SimpleModule()
+                .addSerializer(Ship.class, new ShipSerializer())
+                .addDeserializer(Ship.class, new ShipDeserializer()));
+        return objectMapper;
     }
 }
\ No newline at end of file
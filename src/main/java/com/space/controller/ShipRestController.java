@@ -1,64 +1,133 @@
 package com.space.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.config.RequestClass;
 import com.space.model.Ship;
-import com.space.model.ShipType;
+import com.space.model.ShipChange;
+import com.space.model.ShipChanges;
+import com.space.model.ShipFilter;
+import com.space.model.ShipOperation;
+import com.space.service.FleetVersions;
+import com.space.service.ShipChangeFeed;
+import com.space.service.ShipChangeLog;
 import com.space.service.ShipService;
+import com.space.validation.BadRequestException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 @RestController
 @RequestMapping("/rest")
 public class ShipRestController {
 
+    // The representations of a ship, in the order of the message converters.
+    private static final List<MediaType> REPRESENTATIONS = Arrays.asList(MediaType.APPLICATION_JSON,
+            MediaType.valueOf("application/x-jackson-smile"), MediaType.valueOf("application/cbor"));
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final MediaType NDJSON = MediaType.valueOf(NDJSON_VALUE);
+
     @Autowired
     private ShipService shipService;
 
+    @Autowired
+    private FleetVersions fleetVersions;
+
+    @Autowired
+    private ContentNegotiationManager contentNegotiationManager;
+
+    @Autowired
+    private ShipChangeFeed changeFeed;
+
+    @Autowired
+    private ShipChangeLog changeLog;
+
+    @Autowired
+    private ObjectMapper jsonMapper;
+
+    @Value("${ship.events.timeout}")
+    private long eventsTimeout;
+
+    @Value("${ship.stream.fetchSize}")
+    private int streamFetchSize;
+
     @GetMapping("/ships")
-    public ResponseEntity<List<Ship>> showAllShips(@RequestParam(value = "name", required = false) String name,
-                                                   @RequestParam(value = "planet", required = false) String planet,
-                                                   @RequestParam(value = "shipType", required = false) ShipType shipType,
-                                                   @RequestParam(value = "after", required = false) Long after,
-                                                   @RequestParam(value = "before", required = false) Long before,
-                                                   @RequestParam(value = "isUsed", required = false) Boolean isUsed,
-                                                   @RequestParam(value = "minSpeed", required = false) Double minSpeed,
-                                                   @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
-                                                   @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
-                                                   @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
-                                                   @RequestParam(value = "minRating", required = false) Double minRating,
-                                                   @RequestParam(value = "maxRating", required = false) Double maxRating,
+    public ResponseEntity<List<Ship>> showAllShips(ShipFilter filter, WebRequest webRequest,
                                                    @RequestParam(value = "order", required = false, defaultValue = "ID") ShipOrder order,
                                                    @RequestParam(value = "pageNumber", required = false, defaultValue = "0") Integer pageNumber,
                                                    @RequestParam(value = "pageSize", required = false, defaultValue = "3") Integer pageSize) {
+        if (webRequest.checkNotModified(eTag(fleetVersions.fleetVersion(), webRequest))) {
+            return null;
+        }
         Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(order.getFieldName()));
-        Specification<Ship> specification = Specification.where(shipService.selectByName(name)
-                .and(shipService.selectByPlanet(planet).and(shipService.selectByShipType(shipType))
-                        .and(shipService.selectByProdDate(after, before)).and(shipService.selectByUsed(isUsed))
-                        .and(shipService.selectBySpeed(minSpeed, maxSpeed)).and(shipService.selectByCrew(minCrewSize, maxCrewSize))
-                        .and(shipService.selectByRating(minRating, maxRating))));
+        return new ResponseEntity<>(shipService.getShips(filter, pageable).getContent(), HttpStatus.OK);
+    }
 
-        return new ResponseEntity<>(shipService.getShips(specification, pageable).getContent(), HttpStatus.OK);
+    /**
+     * All ships matching the filter in the given order, one JSON object per line. Ships are written
+     * while the rows are fetched, so the listing is neither paged nor held in memory.
+     */
+    @GetMapping(value = "/ships/stream", produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamShips(ShipFilter filter,
+                                                             @RequestParam(value = "order", required = false, defaultValue = "ID") ShipOrder order) {
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = jsonMapper.getFactory().createGenerator(outputStream).setRootValueSeparator(null);
+            int[] written = {0};
+            RequestClass.HEAVY.run(() -> shipService.forEachShip(filter, Sort.by(order.getFieldName()), ship -> {
+                try {
+                    generator.writeObject(ship);
+                    generator.writeRaw('\n');
+                    if (++written[0] % streamFetchSize == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            generator.close();
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
     }
 
     @GetMapping("/ships/{id}")
-    public ResponseEntity<Ship> getShipById(@PathVariable Long id) {
+    public ResponseEntity<Ship> getShipById(@PathVariable Long id, WebRequest webRequest) {
         if (id == 0) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
         if (!shipService.checkId(id.toString())) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
+        Long version = fleetVersions.shipVersion(id);
+        if (version != null && webRequest.checkNotModified(eTag(version.toString(), webRequest))) {
+            return null;
+        }
         Ship ship = shipService.getShip(id);
         if (ship == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
+        fleetVersions.shipLoaded(id, ship.getVersion());
+        if (webRequest.checkNotModified(eTag(ship, webRequest))) {
+            return null;
+        }
         return new ResponseEntity<>(ship, HttpStatus.OK);
     }
 
@@ -72,15 +141,16 @@ public class ShipRestController {
     }
 
     @PostMapping("/ships/{id}")
-    public ResponseEntity<Ship> updateShip(@RequestBody Ship ship, @PathVariable Long id) {
+    public ResponseEntity<Ship> updateShip(@RequestBody Ship ship, @PathVariable Long id, WebRequest webRequest,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         if (ship == null || id == null) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
         if (!shipService.checkId(id.toString())) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);//400
         }
-        Ship editedShip = shipService.updateShip(ship, id);
-        return new ResponseEntity<>(editedShip, HttpStatus.OK);
+        Ship editedShip = shipService.updateShip(ship, id, parseVersion(ifMatch));
+        return ResponseEntity.ok().eTag(eTag(editedShip, webRequest)).body(editedShip);
     }
 
 
@@ -100,26 +170,122 @@ public class ShipRestController {
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
-    @GetMapping("/ships/count")
-    public ResponseEntity<Integer> count(@RequestParam(value = "name", required = false) String name,
-                                         @RequestParam(value = "planet", required = false) String planet,
-                                         @RequestParam(value = "shipType", required = false) ShipType shipType,
-                                         @RequestParam(value = "after", required = false) Long after,
-                                         @RequestParam(value = "before", required = false) Long before,
-                                         @RequestParam(value = "isUsed", required = false) Boolean isUsed,
-                                         @RequestParam(value = "minSpeed", required = false) Double minSpeed,
-                                         @RequestParam(value = "maxSpeed", required = false) Double maxSpeed,
-                                         @RequestParam(value = "minCrewSize", required = false) Integer minCrewSize,
-                                         @RequestParam(value = "maxCrewSize", required = false) Integer maxCrewSize,
-                                         @RequestParam(value = "minRating", required = false) Double minRating,
-                                         @RequestParam(value = "maxRating", required = false) Double maxRating) {
-        Specification<Ship> specification = Specification.where(shipService.selectByName(name)
-                .and(shipService.selectByPlanet(planet).and(shipService.selectByShipType(shipType))
-                        .and(shipService.selectByProdDate(after, before)).and(shipService.selectByUsed(isUsed))
-                        .and(shipService.selectBySpeed(minSpeed, maxSpeed)).and(shipService.selectByCrew(minCrewSize, maxCrewSize))
-                        .and(shipService.selectByRating(minRating, maxRating))));
-        return new ResponseEntity<>(shipService.getShipCount(specification), HttpStatus.OK);
+    /**
+     * Deletes every ship matching the filter, which takes the parameters of the listing and must
+     * not be empty, and returns how many were deleted.
+     */
+    @DeleteMapping("/ships")
+    public ResponseEntity<Long> deleteShips(ShipFilter filter) {
+        return new ResponseEntity<>(shipService.deleteShips(filter), HttpStatus.OK);
+    }
+
+    @PostMapping("/ships/{id}/operations")
+    public ResponseEntity<Ship> applyOperation(@RequestBody ShipOperation operation, @PathVariable Long id, WebRequest webRequest,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (operation == null || !shipService.checkId(id.toString())) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Ship ship = shipService.applyOperation(id, operation, parseVersion(ifMatch));
+        return ResponseEntity.ok().eTag(eTag(ship, webRequest)).body(ship);
+    }
 
+    /**
+     * A ship's ETag is its version, so the tag of a GET can be sent back as If-Match.
+     */
+    private String eTag(Ship ship, WebRequest webRequest) {
+        return eTag(ship.getVersion().toString(), webRequest);
+    }
+
+    /**
+     * JSON, Smile and CBOR bodies of one URL differ, so the tag names the representation as well:
+     * {@code "<version>-<subtype>"}. A cached body is then only revalidated in its own format.
+     */
+    private String eTag(String version, WebRequest webRequest) {
+        return "\"" + version + "-" + representation(webRequest).getSubtype() + "\"";
+    }
+
+    private MediaType representation(WebRequest webRequest) {
+        try {
+            for (MediaType acceptable : contentNegotiationManager.resolveMediaTypes((NativeWebRequest) webRequest)) {
+                for (MediaType representation : REPRESENTATIONS) {
+                    if (acceptable.isCompatibleWith(representation)) {
+                        return representation;
+                    }
+                }
+            }
+        } catch (HttpMediaTypeNotAcceptableException e) {
+            // Left to the message converters, which answer 406.
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    private Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String version = ifMatch.trim();
+        if (version.startsWith("W/")) {
+            version = version.substring(2);
+        }
+        version = version.replace("\"", "");
+        if (version.indexOf('-') >= 0) {
+            version = version.substring(0, version.indexOf('-'));
+        }
+        try {
+            return Long.parseLong(version);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("If-Match must hold the ship version");
+        }
+    }
+
+    /**
+     * Streams changes of the ships matching the filter: "create" and "update" carry the ship,
+     * "remove" is sent when an update moves a ship out of the filter and "delete" when a ship in
+     * the filter is deleted. Ships outside the filter before and after a write send nothing.
+     * "resync" means events were dropped and the client should reload.
+     */
+    @GetMapping(value = "/ships/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter shipEvents(ShipFilter filter) {
+        SseEmitter emitter = new SseEmitter(eventsTimeout);
+        ShipChangeFeed.Subscription subscription = changeFeed.subscribe(filter, new ShipChangeFeed.Sink() {
+            @Override
+            public void send(ShipChange change, boolean matches) throws IOException {
+                if (matches) {
+                    emitter.send(SseEmitter.event().name(change.getType().name().toLowerCase())
+                            .data(change.getShip(), MediaType.APPLICATION_JSON));
+                } else {
+                    String name = change.getType() == ShipChange.Type.DELETE ? "delete" : "remove";
+                    emitter.send(SseEmitter.event().name(name)
+                            .data(Collections.singletonMap("id", change.getId()), MediaType.APPLICATION_JSON));
+                }
+            }
+
+            @Override
+            public void resync() throws IOException {
+                emitter.send(SseEmitter.event().name("resync").data(""));
+            }
+        });
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(error -> subscription.cancel());
+        return emitter;
+    }
+
+    @GetMapping("/ships/changes")
+    public ResponseEntity<ShipChanges> shipChanges(@RequestParam(value = "since", required = false, defaultValue = "0") Long since,
+                                                   @RequestParam(value = "limit", required = false, defaultValue = "100") Integer limit) {
+        if (since < 0 || limit < 1 || limit > 1000) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(changeLog.changesSince(since, limit), HttpStatus.OK);
+    }
+
+    @GetMapping("/ships/count")
+    public ResponseEntity<Integer> count(ShipFilter filter, WebRequest webRequest) {
+        if (webRequest.checkNotModified(eTag(fleetVersions.fleetVersion(), webRequest))) {
+            return null;
+        }
+        return new ResponseEntity<>(shipService.getShipCount(filter), HttpStatus.OK);
     }
 
 
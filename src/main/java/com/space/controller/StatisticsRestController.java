@@ -0,0 +1,103 @@
+package com.space.controller;
+
+import com.space.config.Bulkheads;
+import com.space.config.CompressionFilter;
+import com.space.config.ConcurrencyLimiter;
+import com.space.config.RateLimiter;
+import com.space.config.RequestClassRoutingDataSource;
+import com.space.config.StartupTimeline;
+import com.space.service.AuditJournal;
+import com.space.service.Shards;
+import com.space.service.StatisticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/rest/statistics")
+public class StatisticsRestController {
+
+    @Autowired
+    private StatisticsService statisticsService;
+
+    @Autowired
+    private CompressionFilter compressionFilter;
+
+    @Autowired
+    private AuditJournal auditJournal;
+
+    @Autowired
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private Bulkheads bulkheads;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private StartupTimeline startupTimeline;
+
+    @Autowired
+    private Shards shards;
+
+    @GetMapping("/queries")
+    public ResponseEntity<Map<String, Object>> queries() {
+        return new ResponseEntity<>(statisticsService.getQueryStatistics(), HttpStatus.OK);
+    }
+
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> cache() {
+        return new ResponseEntity<>(statisticsService.getCacheStatistics(), HttpStatus.OK);
+    }
+
+    @GetMapping("/compression")
+    public ResponseEntity<Map<String, Object>> compression() {
+        return new ResponseEntity<>(compressionFilter.getStatistics(), HttpStatus.OK);
+    }
+
+    @GetMapping("/audit")
+    public ResponseEntity<Map<String, Object>> audit() {
+        return new ResponseEntity<>(auditJournal.getStatistics(), HttpStatus.OK);
+    }
+
+    @GetMapping("/limiter")
+    public ResponseEntity<Map<String, Object>> limiter() {
+        return new ResponseEntity<>(concurrencyLimiter.getStatistics(), HttpStatus.OK);
+    }
+
+    @GetMapping("/ratelimit")
+    public ResponseEntity<Map<String, Object>> rateLimit() {
+        return new ResponseEntity<>(rateLimiter.getStatistics(), HttpStatus.OK);
+    }
+
+    @GetMapping("/bulkheads")
+    public ResponseEntity<Map<String, Object>> bulkheads() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("requests", bulkheads.getStatistics());
+        if (dataSource instanceof RequestClassRoutingDataSource) {
+            statistics.put("connections", ((RequestClassRoutingDataSource) dataSource).getStatistics());
+        }
+        return new ResponseEntity<>(statistics, HttpStatus.OK);
+    }
+
+    @GetMapping("/shards")
+    public ResponseEntity<Map<String, Object>> shards() {
+        return new ResponseEntity<>(shards.getStatistics(), HttpStatus.OK);
+    }
+
+    @GetMapping("/startup")
+    public ResponseEntity<Map<String, Object>> startup() {
+        return new ResponseEntity<>(startupTimeline.getTimeline(), HttpStatus.OK);
+    }
+}
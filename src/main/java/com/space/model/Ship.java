@@ -1,5 +1,8 @@
 package com.space.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import javax.persistence.*;
@@ -8,6 +11,9 @@ import java.util.Date;
 
 @Entity
 @Table(name = "ship")
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Ship {
 
     @Id
@@ -21,6 +27,7 @@ public class Ship {
     @Enumerated(EnumType.STRING)
     @Column(name = "shipType")
     private ShipType shipType;
+    @Temporal(TemporalType.DATE)
     @Column(name = "prodDate")
     private Date prodDate;
     @Column(name = "isUsed")
@@ -31,6 +38,9 @@ public class Ship {
     private Integer crewSize;
     @Column(name = "rating")
     private Double rating;
+    @Version
+    @Column(name = "version")
+    private Long version;
 
 //    public Ship() {
 //    }
@@ -117,4 +127,12 @@ public class Ship {
     public void setRating(Double rating) {
         this.rating = rating;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
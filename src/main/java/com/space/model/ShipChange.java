@@ -0,0 +1,43 @@
+package com.space.model;
+
+/**
+ * A ship write as published to subscribers: {@code ship} is the state after the write, null for a
+ * delete, {@code previous} the state before it, null for a create and for deletes whose state was
+ * not read.
+ */
+public class ShipChange {
+
+    public enum Type {
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    private final Type type;
+    private final Long id;
+    private final Ship ship;
+    private final Ship previous;
+
+    public ShipChange(Type type, Long id, Ship ship, Ship previous) {
+        this.type = type;
+        this.id = id;
+        this.ship = ship;
+        this.previous = previous;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Ship getShip() {
+        return ship;
+    }
+
+    public Ship getPrevious() {
+        return previous;
+    }
+}
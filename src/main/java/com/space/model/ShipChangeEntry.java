@@ -0,0 +1,49 @@
+package com.space.model;
+
+import javax.persistence.*;
+
+/**
+ * One row of the change log: the ship with {@code shipId} was created or updated, or deleted when
+ * {@code deleted} is set. {@code seq} only grows, so it serves as the cursor of incremental sync.
+ * {@code createdAt} is the insert time in epoch milliseconds.
+ */
+@Entity
+@Table(name = "ship_change")
+public class ShipChangeEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "seq")
+    private Long seq;
+    @Column(name = "shipId")
+    private Long shipId;
+    @Column(name = "deleted")
+    private Boolean deleted;
+    @Column(name = "createdAt")
+    private Long createdAt;
+
+    public ShipChangeEntry() {
+    }
+
+    public ShipChangeEntry(Long shipId, Boolean deleted) {
+        this.shipId = shipId;
+        this.deleted = deleted;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public Long getShipId() {
+        return shipId;
+    }
+
+    public Boolean isDeleted() {
+        return deleted;
+    }
+
+    public Long getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,39 @@
+package com.space.model;
+
+import java.util.List;
+
+/**
+ * A batch of incremental sync: the current state of every ship changed after the requested
+ * sequence and the ids of the deleted ones. Requesting again with {@code since} returns the next
+ * batch, {@code hasMore} tells whether one is already waiting.
+ */
+public class ShipChanges {
+
+    private List<Ship> ships;
+    private List<Long> deleted;
+    private Long since;
+    private Boolean hasMore;
+
+    public ShipChanges(List<Ship> ships, List<Long> deleted, Long since, Boolean hasMore) {
+        this.ships = ships;
+        this.deleted = deleted;
+        this.since = since;
+        this.hasMore = hasMore;
+    }
+
+    public List<Ship> getShips() {
+        return ships;
+    }
+
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public Long getSince() {
+        return since;
+    }
+
+    public Boolean getHasMore() {
+        return hasMore;
+    }
+}
@@ -0,0 +1,74 @@
+package com.space.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * Reads a {@link Ship} token by token. Values of the expected JSON type take a direct path,
+ * anything else (strings for numbers, ISO dates, unknown enum names) is handed to the
+ * context's standard deserializers, so coercion rules and error messages stay as before.
+ */
+public class ShipDeserializer extends StdDeserializer<Ship> {
+
+    public ShipDeserializer() {
+        super(Ship.class);
+    }
+
+    @Override
+    public Ship deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = p.nextToken();
+        } else if (token != JsonToken.FIELD_NAME) {
+            return (Ship) ctxt.handleUnexpectedToken(Ship.class, p);
+        }
+
+        Ship ship = new Ship();
+        for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+            String field = p.getCurrentName();
+            token = p.nextToken();
+            boolean isNull = token == JsonToken.VALUE_NULL;
+            switch (field) {
+                case "id":
+                    ship.setId(isNull ? null : token == JsonToken.VALUE_NUMBER_INT ? Long.valueOf(p.getLongValue()) : ctxt.readValue(p, Long.class));
+                    break;
+                case "name":
+                    ship.setName(isNull ? null : token == JsonToken.VALUE_STRING ? p.getText() : ctxt.readValue(p, String.class));
+                    break;
+                case "planet":
+                    ship.setPlanet(isNull ? null : token == JsonToken.VALUE_STRING ? p.getText() : ctxt.readValue(p, String.class));
+                    break;
+                case "shipType":
+                    ship.setShipType(isNull ? null : ctxt.readValue(p, ShipType.class));
+                    break;
+                case "prodDate":
+                    ship.setProdDate(isNull ? null : token == JsonToken.VALUE_NUMBER_INT ? new Date(p.getLongValue()) : ctxt.readValue(p, Date.class));
+                    break;
+                case "isUsed":
+                    ship.setUsed(isNull ? null : token == JsonToken.VALUE_TRUE ? Boolean.TRUE
+                            : token == JsonToken.VALUE_FALSE ? Boolean.FALSE : ctxt.readValue(p, Boolean.class));
+                    break;
+                case "speed":
+                    ship.setSpeed(isNull ? null : token == JsonToken.VALUE_NUMBER_FLOAT ? Double.valueOf(p.getDoubleValue()) : ctxt.readValue(p, Double.class));
+                    break;
+                case "crewSize":
+                    ship.setCrewSize(isNull ? null : token == JsonToken.VALUE_NUMBER_INT ? Integer.valueOf(p.getIntValue()) : ctxt.readValue(p, Integer.class));
+                    break;
+                case "rating":
+                    ship.setRating(isNull ? null : token == JsonToken.VALUE_NUMBER_FLOAT ? Double.valueOf(p.getDoubleValue()) : ctxt.readValue(p, Double.class));
+                    break;
+                case "version":
+                    ship.setVersion(isNull ? null : token == JsonToken.VALUE_NUMBER_INT ? Long.valueOf(p.getLongValue()) : ctxt.readValue(p, Long.class));
+                    break;
+                default:
+                    ctxt.handleUnknownProperty(p, this, Ship.class, field);
+            }
+        }
+        return ship;
+    }
+}
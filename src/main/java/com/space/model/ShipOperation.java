@@ -0,0 +1,37 @@
+package com.space.model;
+
+/**
+ * Field changes applied to a ship in a single UPDATE statement: {@code crewSizeDelta} is added to
+ * the crew size, {@code isUsed} overwrites the flag, and the change only happens while the ship's
+ * flag still equals {@code expectedIsUsed} when that is given.
+ */
+public class ShipOperation {
+
+    private Integer crewSizeDelta;
+    private Boolean isUsed;
+    private Boolean expectedIsUsed;
+
+    public Integer getCrewSizeDelta() {
+        return crewSizeDelta;
+    }
+
+    public void setCrewSizeDelta(Integer crewSizeDelta) {
+        this.crewSizeDelta = crewSizeDelta;
+    }
+
+    public Boolean getIsUsed() {
+        return isUsed;
+    }
+
+    public void setIsUsed(Boolean isUsed) {
+        this.isUsed = isUsed;
+    }
+
+    public Boolean getExpectedIsUsed() {
+        return expectedIsUsed;
+    }
+
+    public void setExpectedIsUsed(Boolean expectedIsUsed) {
+        this.expectedIsUsed = expectedIsUsed;
+    }
+}
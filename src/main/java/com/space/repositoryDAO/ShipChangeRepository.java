@@ -0,0 +1,36 @@
+package com.space.repositoryDAO;
+
+import com.space.model.ShipChangeEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ShipChangeRepository extends JpaRepository<ShipChangeEntry, Long> {
+
+    List<ShipChangeEntry> findBySeqGreaterThanOrderBySeq(Long seq, Pageable pageable);
+
+    // Rows followed by a later row of the same ship: a reader past them still gets the later one.
+    @Query("SELECT c.seq FROM ShipChangeEntry c WHERE c.createdAt < :before AND EXISTS " +
+            "(SELECT later.seq FROM ShipChangeEntry later WHERE later.shipId = c.shipId AND later.seq > c.seq) " +
+            "ORDER BY c.seq")
+    List<Long> findSuperseded(@Param("before") long before, Pageable pageable);
+
+    @Query("SELECT c.seq FROM ShipChangeEntry c WHERE c.deleted = TRUE AND c.createdAt < :before ORDER BY c.seq")
+    List<Long> findTombstones(@Param("before") long before, Pageable pageable);
+
+    // MySQL refuses a DELETE with a subquery on its own table, so the rows are selected first.
+    @Modifying
+    @Query("DELETE FROM ShipChangeEntry c WHERE c.seq IN :seqs")
+    int deleteBySeqs(@Param("seqs") List<Long> seqs);
+
+    @Query(value = "SELECT seq FROM ship_change_horizon", nativeQuery = true)
+    long findHorizon();
+
+    @Modifying
+    @Query(value = "UPDATE ship_change_horizon SET seq = :seq WHERE seq < :seq", nativeQuery = true)
+    int raiseHorizon(@Param("seq") long seq);
+}
@@ -3,9 +3,36 @@ package com.space.repositoryDAO;
 import com.space.model.Ship;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 
 
-public interface ShipRepository extends JpaRepository<Ship, Long> , JpaSpecificationExecutor<Ship>{
+public interface ShipRepository extends JpaRepository<Ship, Long> , JpaSpecificationExecutor<Ship>, ShipRepositoryCustom {
 
-}
\ No newline at end of file
+    // Hibernate cannot tell which rows a native UPDATE touched, so running it evicts the whole Ship
+    // region and the cached queries on the ship table.
+    // The new isUsed value is spelled out in the rating formula because MySQL evaluates SET
+    // assignments left to right on the updated row while H2 uses the old one.
+    // clearAutomatically drops the entity read before the update, so the one read after it is fresh.
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE ship SET crewSize = crewSize + :crewSizeDelta, " +
+            "isUsed = CASE WHEN :setUsed THEN :used ELSE isUsed END, " +
+            "rating = FLOOR(80 * speed * (CASE WHEN (CASE WHEN :setUsed THEN :used ELSE isUsed END) THEN 0.5 ELSE 1.0 END)" +
+            " / (3019 - YEAR(prodDate) + 1) * 100 + 0.5) / 100, " +
+            "version = version + 1 " +
+            "WHERE id = :id AND crewSize + :crewSizeDelta BETWEEN 1 AND 9999 " +
+            "AND (:checkUsed = FALSE OR isUsed = :expectedUsed) " +
+            "AND (:checkVersion = FALSE OR version = :expectedVersion)", nativeQuery = true)
+    int applyOperation(@Param("id") Long id,
+                       @Param("crewSizeDelta") int crewSizeDelta,
+                       @Param("setUsed") boolean setUsed,
+                       @Param("used") boolean used,
+                       @Param("checkUsed") boolean checkUsed,
+                       @Param("expectedUsed") boolean expectedUsed,
+                       @Param("checkVersion") boolean checkVersion,
+                       @Param("expectedVersion") long expectedVersion);
+}
@@ -0,0 +1,37 @@
+package com.space.repositoryDAO;
+
+import com.space.model.Ship;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Filtered listing and counting of ships through the query cache. Spring Data applies query hints
+ * to the select of a page but not to count queries, so both are built here. Bulk deletes go
+ * through {@link #deleteChunk}.
+ */
+public interface ShipRepositoryCustom {
+
+    Page<Ship> findAll(Specification<Ship> spec, Pageable pageable);
+
+    long count(Specification<Ship> spec);
+
+    /**
+     * Streams the ships matching the specification in the given order, {@code fetchSize} rows per
+     * round trip, bypassing the query cache. Streamed ships are detached, and the stream has to be
+     * consumed and closed inside the caller's transaction.
+     */
+    Stream<Ship> stream(Specification<Ship> spec, Sort sort, int fetchSize);
+
+    /**
+     * Deletes, in one transaction, up to {@code size} ships matching the specification with ids
+     * above {@code afterId}, lowest ids first, and returns their ids in ascending order.
+     */
+    @Transactional
+    List<Long> deleteChunk(Specification<Ship> spec, long afterId, int size);
+}
@@ -0,0 +1,113 @@
+package com.space.repositoryDAO;
+
+import com.space.model.Ship;
+import com.space.service.Shards;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public class ShipRepositoryImpl implements ShipRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * The query cache does not know which shard a result came from, so it is only used with a
+     * single database.
+     */
+    @Autowired
+    private Shards shards;
+
+    @Override
+    public Page<Ship> findAll(Specification<Ship> spec, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ship> query = criteriaBuilder.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+        query.select(root).where(spec.toPredicate(root, query, criteriaBuilder));
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+
+        TypedQuery<Ship> typedQuery = entityManager.createQuery(query).setHint(HINT_CACHEABLE, !shards.isEnabled());
+        if (pageable.isUnpaged()) {
+            List<Ship> ships = typedQuery.getResultList();
+            return new PageImpl<>(ships, pageable, ships.size());
+        }
+        List<Ship> ships = typedQuery
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        if (ships.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !ships.isEmpty())) {
+            return new PageImpl<>(ships, pageable, pageable.getOffset() + ships.size());
+        }
+        return new PageImpl<>(ships, pageable, count(spec));
+    }
+
+    @Override
+    public long count(Specification<Ship> spec) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Ship> root = query.from(Ship.class);
+        query.select(criteriaBuilder.count(root)).where(spec.toPredicate(root, query, criteriaBuilder));
+        return entityManager.createQuery(query).setHint(HINT_CACHEABLE, !shards.isEnabled()).getSingleResult();
+    }
+
+    /**
+     * Each ship is detached once it is handed out, so the persistence context does not grow with
+     * the result.
+     */
+    @Override
+    public Stream<Ship> stream(Specification<Ship> spec, Sort sort, int fetchSize) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ship> query = criteriaBuilder.createQuery(Ship.class);
+        Root<Ship> root = query.from(Ship.class);
+        query.select(root).where(spec.toPredicate(root, query, criteriaBuilder));
+        query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+
+        return entityManager.createQuery(query)
+                .setHint(HINT_FETCH_SIZE, fetchSize)
+                .setHint(HINT_READONLY, true)
+                .getResultStream()
+                .peek(entityManager::detach);
+    }
+
+    /**
+     * The chunk is locked while it is selected, so a ship updated out of the filter in between is
+     * not deleted. The bulk delete evicts the Ship cache region and invalidates cached queries.
+     */
+    @Override
+    public List<Long> deleteChunk(Specification<Ship> spec, long afterId, int size) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Ship> root = query.from(Ship.class);
+        query.select(root.get("id"))
+                .where(spec.toPredicate(root, query, criteriaBuilder), criteriaBuilder.greaterThan(root.get("id"), afterId))
+                .orderBy(criteriaBuilder.asc(root.get("id")));
+        List<Long> ids = entityManager.createQuery(query)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setMaxResults(size)
+                .getResultList();
+        if (!ids.isEmpty()) {
+            entityManager.createQuery("DELETE FROM Ship s WHERE s.id IN :ids")
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,288 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.model.ShipChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only audit journal of ship writes. Writers put a snapshot of the write into a lock-free
+ * ring and return; a single journal thread copies the records into memory-mapped segment files
+ * of {@code audit.segmentSize} bytes and rolls to a new segment when one is full. A writer only
+ * waits when the ring is full.
+ * <p>
+ * {@code audit.fsync} decides when the mapped pages are forced to disk: {@code always} after every
+ * drained batch of records, {@code interval} at most every {@code audit.fsyncInterval} milliseconds,
+ * {@code none} leaves it to the operating system. An empty {@code audit.dir} turns the journal off.
+ * Segments are read back with {@link AuditJournalReader}.
+ */
+@Component
+public class AuditJournal implements DisposableBean {
+
+    public enum FsyncPolicy {
+        ALWAYS,
+        INTERVAL,
+        NONE
+    }
+
+    static final String SEGMENT_PREFIX = "audit-";
+    static final String SEGMENT_SUFFIX = ".log";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuditJournal.class);
+    private static final long IDLE_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long SLEEP_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Path directory;
+    private final int segmentSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+
+    private final int mask;
+    private final AtomicReferenceArray<AuditRecord> slots;
+    private final AtomicLongArray published;
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+    private volatile boolean running;
+    private volatile boolean sleeping;
+    private final Thread journalThread;
+
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private long segmentIndex;
+    private FileChannel segmentChannel;
+    private MappedByteBuffer segment;
+    private boolean dirty;
+    private long lastForce;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong ringFullWaits = new AtomicLong();
+    private final AtomicLong forces = new AtomicLong();
+    private final AtomicLong forceNanos = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public AuditJournal(@Value("${audit.dir}") String directory,
+                        @Value("${audit.segmentSize}") int segmentSize,
+                        @Value("${audit.bufferSize}") int bufferSize,
+                        @Value("${audit.fsync}") String fsyncPolicy,
+                        @Value("${audit.fsyncInterval}") long fsyncInterval) throws IOException {
+        this.directory = directory.trim().isEmpty() ? null : Paths.get(directory.trim());
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = FsyncPolicy.valueOf(fsyncPolicy.trim().toUpperCase());
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncInterval);
+
+        int capacity = Integer.highestOneBit(Math.max(bufferSize - 1, 1)) << 1;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+
+        if (this.directory == null) {
+            journalThread = null;
+            return;
+        }
+        open();
+        running = true;
+        journalThread = new Thread(this::run, "audit-journal");
+        journalThread.setDaemon(true);
+        journalThread.start();
+    }
+
+    public boolean isEnabled() {
+        return journalThread != null;
+    }
+
+    public void append(ShipChange.Type type, Long shipId, Ship ship) {
+        if (!isEnabled() || shipId == null) {
+            return;
+        }
+        AuditRecord record = new AuditRecord(System.currentTimeMillis(), type, shipId, ship);
+        long sequence;
+        while (true) {
+            sequence = head.get();
+            if (sequence - tail > mask) {
+                if (!running) {
+                    throw new IllegalStateException("The audit journal is closed");
+                }
+                ringFullWaits.incrementAndGet();
+                LockSupport.parkNanos(IDLE_NANOS);
+            } else if (head.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+        int slot = (int) sequence & mask;
+        slots.lazySet(slot, record);
+        published.set(slot, sequence);
+        if (sleeping) {
+            LockSupport.unpark(journalThread);
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", isEnabled());
+        statistics.put("fsyncPolicy", fsyncPolicy.name().toLowerCase());
+        statistics.put("appended", appended.get());
+        statistics.put("pending", head.get() - tail);
+        statistics.put("ringFullWaits", ringFullWaits.get());
+        statistics.put("segment", segmentIndex);
+        statistics.put("forces", forces.get());
+        statistics.put("averageForceMicros", forces.get() == 0 ? 0 : forceNanos.get() / forces.get() / 1000);
+        statistics.put("failures", failures.get());
+        return statistics;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException, IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(journalThread);
+        journalThread.join(TimeUnit.SECONDS.toMillis(10));
+        segmentChannel.close();
+        lock.release();
+        lockChannel.close();
+    }
+
+    private void run() {
+        lastForce = System.nanoTime();
+        while (running || tail != head.get()) {
+            int drained = drain();
+            if (dirty && (fsyncPolicy == FsyncPolicy.ALWAYS
+                    || fsyncPolicy == FsyncPolicy.INTERVAL && System.nanoTime() - lastForce >= fsyncIntervalNanos)) {
+                force();
+            }
+            if (drained == 0) {
+                idle();
+            }
+        }
+        if (dirty && fsyncPolicy != FsyncPolicy.NONE) {
+            force();
+        }
+    }
+
+    /**
+     * Waits for the next record. While a claimed slot is being filled the thread only backs off
+     * briefly; with the ring empty it sleeps until a writer wakes it, or until an interval fsync is
+     * due. A writer checks {@code sleeping} after publishing and the thread checks {@code head} after
+     * raising it, so one of them always sees the other.
+     */
+    private void idle() {
+        if (tail != head.get()) {
+            LockSupport.parkNanos(IDLE_NANOS);
+            return;
+        }
+        long sleep = SLEEP_NANOS;
+        if (dirty && fsyncPolicy == FsyncPolicy.INTERVAL) {
+            sleep = Math.max(IDLE_NANOS, fsyncIntervalNanos - (System.nanoTime() - lastForce));
+        }
+        sleeping = true;
+        if (running && tail == head.get()) {
+            LockSupport.parkNanos(this, sleep);
+        }
+        sleeping = false;
+    }
+
+    private int drain() {
+        int drained = 0;
+        long next = tail;
+        int slot = (int) next & mask;
+        while (published.get(slot) == next) {
+            AuditRecord record = slots.get(slot);
+            slots.lazySet(slot, null);
+            write(record);
+            tail = ++next;
+            slot = (int) next & mask;
+            drained++;
+        }
+        return drained;
+    }
+
+    private void write(AuditRecord record) {
+        try {
+            if (!record.writeTo(segment)) {
+                roll();
+                if (!record.writeTo(segment)) {
+                    throw new IOException("Audit record does not fit into a segment of " + segmentSize + " bytes");
+                }
+            }
+            dirty = true;
+            appended.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            failures.incrementAndGet();
+            LOGGER.error("Could not journal " + record, e);
+        }
+    }
+
+    private void force() {
+        long start = System.nanoTime();
+        segment.force();
+        forceNanos.addAndGet(System.nanoTime() - start);
+        forces.incrementAndGet();
+        lastForce = System.nanoTime();
+        dirty = false;
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        lockChannel = FileChannel.open(directory.resolve("lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        lock = lockChannel.tryLock();
+        if (lock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("The audit journal in " + directory + " is used by another process");
+        }
+
+        List<Path> segments = AuditJournalReader.segments(directory);
+        if (segments.isEmpty()) {
+            map(0);
+            return;
+        }
+        map(AuditJournalReader.segmentIndex(segments.get(segments.size() - 1)));
+        while (AuditRecord.readFrom(segment) != null) {
+            // skip to the end of the written records
+        }
+        // Clears whatever a crash left behind the last whole record.
+        for (int i = segment.position(); i < segment.limit(); i++) {
+            if (segment.get(i) != 0) {
+                segment.put(i, (byte) 0);
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NONE && dirty) {
+            force();
+        }
+        segmentChannel.close();
+        map(segmentIndex + 1);
+    }
+
+    private void map(long index) throws IOException {
+        segmentIndex = index;
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+        segmentChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentChannel.size(), segmentSize));
+    }
+}
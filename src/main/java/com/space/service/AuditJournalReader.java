@@ -0,0 +1,65 @@
+package com.space.service;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads the segments written by {@link AuditJournal} in order. Reading stops at the end of the
+ * written data of each segment, a record torn by a crash is skipped together with the rest of
+ * its segment. Run {@code main} with the journal directory to print the records, one per line.
+ */
+public final class AuditJournalReader {
+
+    private AuditJournalReader() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: AuditJournalReader <journal directory>");
+            System.exit(2);
+        }
+        replay(Paths.get(args[0]), System.out::println);
+    }
+
+    public static long replay(Path directory, Consumer<AuditRecord> consumer) throws IOException {
+        long count = 0;
+        for (Path path : segments(directory)) {
+            try (FileChannel channel = FileChannel.open(path)) {
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                AuditRecord record;
+                while ((record = AuditRecord.readFrom(segment)) != null) {
+                    consumer.accept(record);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(AuditJournalReader::isSegment)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    static long segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(AuditJournal.SEGMENT_PREFIX.length(),
+                name.length() - AuditJournal.SEGMENT_SUFFIX.length()));
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(AuditJournal.SEGMENT_PREFIX) && name.endsWith(AuditJournal.SEGMENT_SUFFIX);
+    }
+}
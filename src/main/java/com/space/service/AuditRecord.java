@@ -0,0 +1,231 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.model.ShipChange;
+import com.space.model.ShipType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.zip.CRC32;
+
+/**
+ * One journal entry, a snapshot of a ship write taken when it happened. The binary layout is
+ * {@code length, crc32, timestamp, type, shipId} followed, unless the ship was deleted, by the
+ * version and fields of the ship. Nulls are written as -1 string lengths, NaN doubles and
+ * {@code Integer.MIN_VALUE}/{@code Long.MIN_VALUE}. A length of 0 marks the end of a segment.
+ */
+public class AuditRecord {
+
+    static final int HEADER_SIZE = 8;
+
+    private final long timestamp;
+    private final ShipChange.Type type;
+    private final long shipId;
+    private final Long version;
+    private final String name;
+    private final String planet;
+    private final ShipType shipType;
+    private final Date prodDate;
+    private final Boolean isUsed;
+    private final Double speed;
+    private final Integer crewSize;
+    private final Double rating;
+
+    public AuditRecord(long timestamp, ShipChange.Type type, long shipId, Ship ship) {
+        this(timestamp, type, shipId,
+                ship == null ? null : ship.getVersion(),
+                ship == null ? null : ship.getName(),
+                ship == null ? null : ship.getPlanet(),
+                ship == null ? null : ship.getShipType(),
+                ship == null || ship.getProdDate() == null ? null : new Date(ship.getProdDate().getTime()),
+                ship == null ? null : ship.isUsed(),
+                ship == null ? null : ship.getSpeed(),
+                ship == null ? null : ship.getCrewSize(),
+                ship == null ? null : ship.getRating());
+    }
+
+    private AuditRecord(long timestamp, ShipChange.Type type, long shipId, Long version, String name, String planet,
+                        ShipType shipType, Date prodDate, Boolean isUsed, Double speed, Integer crewSize, Double rating) {
+        this.timestamp = timestamp;
+        this.type = type;
+        this.shipId = shipId;
+        this.version = version;
+        this.name = name;
+        this.planet = planet;
+        this.shipType = shipType;
+        this.prodDate = prodDate;
+        this.isUsed = isUsed;
+        this.speed = speed;
+        this.crewSize = crewSize;
+        this.rating = rating;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public ShipChange.Type getType() {
+        return type;
+    }
+
+    public long getShipId() {
+        return shipId;
+    }
+
+    /**
+     * The ship as it was written, or null for a delete.
+     */
+    public Ship getShip() {
+        if (type == ShipChange.Type.DELETE) {
+            return null;
+        }
+        Ship ship = new Ship();
+        ship.setId(shipId);
+        ship.setVersion(version);
+        ship.setName(name);
+        ship.setPlanet(planet);
+        ship.setShipType(shipType);
+        ship.setProdDate(prodDate);
+        ship.setUsed(isUsed);
+        ship.setSpeed(speed);
+        ship.setCrewSize(crewSize);
+        ship.setRating(rating);
+        return ship;
+    }
+
+    /**
+     * Writes the record at the buffer's position, or returns false and leaves the buffer untouched
+     * if it does not fit.
+     */
+    boolean writeTo(ByteBuffer buffer) {
+        byte[] nameBytes = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+        byte[] planetBytes = planet == null ? null : planet.getBytes(StandardCharsets.UTF_8);
+        int bodySize = 8 + 1 + 8;
+        if (type != ShipChange.Type.DELETE) {
+            bodySize += 8 + stringSize(nameBytes) + stringSize(planetBytes) + 1 + 8 + 1 + 8 + 4 + 8;
+        }
+        if (buffer.remaining() < HEADER_SIZE + bodySize) {
+            return false;
+        }
+
+        int start = buffer.position();
+        buffer.position(start + HEADER_SIZE);
+        buffer.putLong(timestamp);
+        buffer.put((byte) type.ordinal());
+        buffer.putLong(shipId);
+        if (type != ShipChange.Type.DELETE) {
+            buffer.putLong(version == null ? Long.MIN_VALUE : version);
+            putString(buffer, nameBytes);
+            putString(buffer, planetBytes);
+            buffer.put(shipType == null ? -1 : (byte) shipType.ordinal());
+            buffer.putLong(prodDate == null ? Long.MIN_VALUE : prodDate.getTime());
+            buffer.put(isUsed == null ? -1 : (byte) (isUsed ? 1 : 0));
+            buffer.putDouble(speed == null ? Double.NaN : speed);
+            buffer.putInt(crewSize == null ? Integer.MIN_VALUE : crewSize);
+            buffer.putDouble(rating == null ? Double.NaN : rating);
+        }
+        int end = buffer.position();
+
+        ByteBuffer body = buffer.duplicate();
+        body.position(start + HEADER_SIZE).limit(end);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        buffer.putInt(start + 4, (int) crc.getValue());
+        // The length goes last: a reader never takes a half written record for a whole one.
+        buffer.putInt(start, bodySize);
+        return true;
+    }
+
+    /**
+     * Reads the record at the buffer's position. Returns null at the end of the written data,
+     * including a record that was torn by a crash.
+     */
+    static AuditRecord readFrom(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE) {
+            return null;
+        }
+        int start = buffer.position();
+        int bodySize = buffer.getInt(start);
+        if (bodySize <= 0 || bodySize > buffer.remaining() - HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer body = buffer.duplicate();
+        body.position(start + HEADER_SIZE).limit(start + HEADER_SIZE + bodySize);
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(start + 4)) {
+            return null;
+        }
+
+        long timestamp = body.getLong();
+        ShipChange.Type type = ShipChange.Type.values()[body.get()];
+        long shipId = body.getLong();
+        AuditRecord record;
+        if (type == ShipChange.Type.DELETE) {
+            record = new AuditRecord(timestamp, type, shipId, null);
+        } else {
+            long version = body.getLong();
+            String name = getString(body);
+            String planet = getString(body);
+            byte shipType = body.get();
+            long prodDate = body.getLong();
+            byte isUsed = body.get();
+            double speed = body.getDouble();
+            int crewSize = body.getInt();
+            double rating = body.getDouble();
+            record = new AuditRecord(timestamp, type, shipId,
+                    version == Long.MIN_VALUE ? null : version,
+                    name, planet,
+                    shipType < 0 ? null : ShipType.values()[shipType],
+                    prodDate == Long.MIN_VALUE ? null : new Date(prodDate),
+                    isUsed < 0 ? null : isUsed == 1,
+                    Double.isNaN(speed) ? null : speed,
+                    crewSize == Integer.MIN_VALUE ? null : crewSize,
+                    Double.isNaN(rating) ? null : rating);
+        }
+        buffer.position(start + HEADER_SIZE + bodySize);
+        return record;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder line = new StringBuilder()
+                .append(timestamp).append(' ').append(type).append(' ').append(shipId);
+        if (type != ShipChange.Type.DELETE) {
+            line.append(" version=").append(version)
+                    .append(" name=").append(name)
+                    .append(" planet=").append(planet)
+                    .append(" shipType=").append(shipType)
+                    .append(" prodDate=").append(prodDate == null ? null : prodDate.getTime())
+                    .append(" isUsed=").append(isUsed)
+                    .append(" speed=").append(speed)
+                    .append(" crewSize=").append(crewSize)
+                    .append(" rating=").append(rating);
+        }
+        return line.toString();
+    }
+
+    private static int stringSize(byte[] bytes) {
+        return 2 + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,60 @@
+package com.space.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory fleet version used in the strong ETag of listings and counts. It grows on every write
+ * made through {@link ShipService} and is prefixed with the start time of this instance, so tags
+ * issued before a restart never match. Changes made to the database behind the service's back are
+ * not seen here. A single ship is tagged with its own {@code version}; the versions of ships
+ * written or read here are remembered too, so a conditional GET of a ship can be answered without
+ * the database.
+ */
+@Component
+public class FleetVersions {
+
+    // Versions only grow, and a deleted ship stays above every version until it is read again.
+    private static final long DELETED = Long.MAX_VALUE;
+    private static final int MAX_SHIPS = 100_000;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong fleetVersion = new AtomicLong();
+    private final ConcurrentMap<Long, Long> shipVersions = new ConcurrentHashMap<>();
+
+    /**
+     * {@code version} is the ship's version after the write, null for a delete.
+     */
+    public void shipChanged(Long id, Long version) {
+        fleetVersion.incrementAndGet();
+        remember(id, version == null ? DELETED : version);
+    }
+
+    public void shipLoaded(Long id, Long version) {
+        remember(id, version);
+    }
+
+    /**
+     * The latest known version of the ship, or null if it is not known here.
+     */
+    public Long shipVersion(Long id) {
+        Long version = shipVersions.get(id);
+        return version == null || version == DELETED ? null : version;
+    }
+
+    public String fleetVersion() {
+        return epoch + "." + fleetVersion.get();
+    }
+
+    private void remember(Long id, long version) {
+        if (shipVersions.size() >= MAX_SHIPS && !shipVersions.containsKey(id)) {
+            // Forgetting only costs the query-free path.
+            shipVersions.clear();
+        }
+        // A read that raced with a write must not put back the older version.
+        shipVersions.merge(id, version, Math::max);
+    }
+}
@@ -0,0 +1,55 @@
+package com.space.service;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+/**
+ * The production days selected by an inclusive range of instants: the first whole day not before
+ * the lower bound and the last whole day not after the upper one, either of them open when null.
+ * prodDate is a DATE column and the ship table is partitioned by its year, so bounds of whole days
+ * let MySQL compare them without conversion and skip the partitions outside the range.
+ */
+public final class ProdDateRange {
+
+    private final Date first;
+    private final Date last;
+
+    private ProdDateRange(Date first, Date last) {
+        this.first = first;
+        this.last = last;
+    }
+
+    public static ProdDateRange of(Long from, Long to) {
+        return new ProdDateRange(from == null ? null : firstDay(from), to == null ? null : lastDay(to));
+    }
+
+    public Date getFirst() {
+        return first;
+    }
+
+    public Date getLast() {
+        return last;
+    }
+
+    private static Date firstDay(long from) {
+        Date day = lastDay(from);
+        if (day.getTime() == from) {
+            return day;
+        }
+        Calendar calendar = new GregorianCalendar();
+        calendar.setTime(day);
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        return calendar.getTime();
+    }
+
+    private static Date lastDay(long to) {
+        Calendar calendar = new GregorianCalendar();
+        calendar.setTimeInMillis(to);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTime();
+    }
+}
@@ -0,0 +1,155 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.model.ShipFilter;
+import com.space.model.ShipOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Routes {@link ShipService} calls to the shards. Calls on one ship run on the shard its id
+ * names, new ships on the shard picked by {@link Shards#place}. Listings and counts run on all
+ * shards in parallel: every shard returns its first {@code offset + pageSize} ships in the
+ * requested order, and the page is cut from the merge of those. The shard is bound before the
+ * call enters the transactional {@link ShipServiceImpl}, so each transaction stays on one shard.
+ */
+@Service
+@Primary
+public class ShardedShipService implements ShipService {
+
+    private static final String ID = "id";
+    // The sort properties of ShipOrder.
+    private static final Map<String, Comparator<Ship>> PROPERTIES = new HashMap<>();
+
+    static {
+        PROPERTIES.put(ID, Comparator.comparing(Ship::getId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        PROPERTIES.put("speed", Comparator.comparing(Ship::getSpeed, Comparator.nullsFirst(Comparator.naturalOrder())));
+        PROPERTIES.put("prodDate", Comparator.comparing(Ship::getProdDate, Comparator.nullsFirst(Comparator.naturalOrder())));
+        PROPERTIES.put("rating", Comparator.comparing(Ship::getRating, Comparator.nullsFirst(Comparator.naturalOrder())));
+    }
+
+    @Autowired
+    @Qualifier("shipServiceImpl")
+    private ShipService delegate;
+
+    @Autowired
+    private Shards shards;
+
+    @Override
+    public Page<Ship> getShips(ShipFilter filter, Pageable sortedBy) {
+        if (!shards.isEnabled()) {
+            return delegate.getShips(filter, sortedBy);
+        }
+        Sort order = sortedBy.getSort().and(Sort.by(ID));
+        Pageable head = sortedBy.isUnpaged() ? sortedBy
+                : PageRequest.of(0, (int) sortedBy.getOffset() + sortedBy.getPageSize(), order);
+        List<Page<Ship>> pages = shards.onEach(() -> delegate.getShips(filter, head));
+
+        long total = pages.stream().mapToLong(Page::getTotalElements).sum();
+        List<Ship> merged = pages.stream()
+                .flatMap(page -> page.getContent().stream())
+                .sorted(comparator(order))
+                .collect(Collectors.toList());
+        if (sortedBy.isUnpaged()) {
+            return new PageImpl<>(merged, sortedBy, total);
+        }
+        List<Ship> content = merged.stream()
+                .skip(sortedBy.getOffset())
+                .limit(sortedBy.getPageSize())
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, sortedBy, total);
+    }
+
+    /**
+     * With shards the listings of all shards are loaded and merged before the first ship is handed
+     * to the action.
+     */
+    @Override
+    public void forEachShip(ShipFilter filter, Sort sortedBy, Consumer<Ship> action) {
+        if (!shards.isEnabled()) {
+            delegate.forEachShip(filter, sortedBy, action);
+            return;
+        }
+        Sort order = sortedBy.and(Sort.by(ID));
+        shards.onEach(() -> delegate.getShips(filter, Pageable.unpaged()).getContent()).stream()
+                .flatMap(List::stream)
+                .sorted(comparator(order))
+                .forEach(action);
+    }
+
+    @Override
+    public Integer getShipCount(ShipFilter filter) {
+        if (!shards.isEnabled()) {
+            return delegate.getShipCount(filter);
+        }
+        return shards.onEach(() -> delegate.getShipCount(filter)).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @Override
+    public void saveNewShip(Ship ship) {
+        shards.on(shards.place(ship), () -> delegate.saveNewShip(ship));
+    }
+
+    @Override
+    public Ship getShip(Long id) {
+        return shards.on(shards.ofId(id), () -> delegate.getShip(id));
+    }
+
+    @Override
+    public void deleteShip(Long id) {
+        shards.on(shards.ofId(id), () -> delegate.deleteShip(id));
+    }
+
+    @Override
+    public long deleteShips(ShipFilter filter) {
+        if (!shards.isEnabled()) {
+            return delegate.deleteShips(filter);
+        }
+        return shards.onEach(() -> delegate.deleteShips(filter)).stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public Ship updateShip(Ship ship, Long id, Long expectedVersion) {
+        return shards.on(shards.ofId(id), () -> delegate.updateShip(ship, id, expectedVersion));
+    }
+
+    @Override
+    public Ship applyOperation(Long id, ShipOperation operation, Long expectedVersion) {
+        return shards.on(shards.ofId(id), () -> delegate.applyOperation(id, operation, expectedVersion));
+    }
+
+    @Override
+    public boolean checkId(String id) {
+        return delegate.checkId(id);
+    }
+
+    /**
+     * The order of a single database, with nulls first as in MySQL. The sort always ends with the
+     * id, so pages of equal keys neither repeat nor skip ships.
+     */
+    private static Comparator<Ship> comparator(Sort sort) {
+        Comparator<Ship> comparator = (left, right) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<Ship> property = PROPERTIES.get(order.getProperty());
+            if (property == null) {
+                throw new IllegalArgumentException("Ships cannot be merged by " + order.getProperty());
+            }
+            comparator = comparator.thenComparing(order.isAscending() ? property : property.reversed());
+        }
+        return comparator;
+    }
+}
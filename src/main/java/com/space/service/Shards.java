@@ -0,0 +1,169 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Horizontal partitioning of ships over {@code shard.count} databases. Shard {@code k} hands out
+ * the ids from {@code k * shard.idRange + 1}, so every id names its shard and point lookups go to
+ * a single database. New ships are placed by the hash of their planet ({@code planet}) or round
+ * robin ({@code id}); a ship stays where it was created when its planet changes later.
+ * <p>
+ * The shard a thread works on is bound with {@link #on}, the sharded data source routes
+ * connections by {@link #current()}. Unbound threads use shard 0, which also holds the change log.
+ * With one shard nothing is routed and the application uses a single database as before.
+ */
+@Component
+public class Shards implements DisposableBean {
+
+    public enum Placement {
+        PLANET,
+        ID
+    }
+
+    public static final int HOME = 0;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private final int count;
+    private final long idRange;
+    private final Placement placement;
+    private final ExecutorService executor;
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    private final AtomicLong routed = new AtomicLong();
+    private final AtomicLong fanOuts = new AtomicLong();
+    private final AtomicLong fanOutNanos = new AtomicLong();
+
+    public Shards(@Value("${shard.count}") int count,
+                  @Value("${shard.idRange}") long idRange,
+                  @Value("${shard.placement}") String placement) {
+        this.count = Math.max(count, 1);
+        this.idRange = idRange;
+        this.placement = Placement.valueOf(placement.trim().toUpperCase());
+        this.executor = this.count > 1 ? Executors.newFixedThreadPool(this.count * 4, runnable -> {
+            Thread thread = new Thread(runnable, "shard-fan-out");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? HOME : shard;
+    }
+
+    public boolean isEnabled() {
+        return count > 1;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long firstId(int shard) {
+        return shard * idRange + 1;
+    }
+
+    public int ofId(long id) {
+        return (int) Math.max(0, Math.min(count - 1, (id - 1) / idRange));
+    }
+
+    public int place(Ship ship) {
+        if (placement == Placement.PLANET && ship.getPlanet() != null) {
+            return Math.floorMod(ship.getPlanet().hashCode(), count);
+        }
+        return Math.floorMod(nextShard.getAndIncrement(), count);
+    }
+
+    /**
+     * Runs the action with the thread bound to the shard. Transactions started inside it use
+     * connections of that shard only.
+     */
+    public <T> T on(int shard, Supplier<T> action) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        routed.incrementAndGet();
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public void on(int shard, Runnable action) {
+        on(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the action on every shard in parallel and returns the results in shard order. The first
+     * failure is rethrown once all shards have answered.
+     */
+    public <T> List<T> onEach(Supplier<T> action) {
+        long start = System.nanoTime();
+        List<Future<T>> futures = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            int target = shard;
+            futures.add(executor.submit(() -> on(target, action)));
+        }
+        List<T> results = new ArrayList<>(count);
+        RuntimeException failure = null;
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the shards", e);
+            }
+        }
+        fanOuts.incrementAndGet();
+        fanOutNanos.addAndGet(System.nanoTime() - start);
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("count", count);
+        statistics.put("placement", placement.name().toLowerCase());
+        statistics.put("routed", routed.get());
+        statistics.put("fanOuts", fanOuts.get());
+        statistics.put("averageFanOutMicros", fanOuts.get() == 0 ? 0 : fanOutNanos.get() / fanOuts.get() / 1000);
+        return statistics;
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
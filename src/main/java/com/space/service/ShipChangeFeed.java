@@ -0,0 +1,142 @@
+package com.space.service;
+
+import com.space.model.ShipChange;
+import com.space.model.ShipFilter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fans ship changes out to subscribers. Writers only offer a change to each subscriber's bounded
+ * queue and never wait: when a queue is full it is emptied and the subscriber is told to resync
+ * instead, so a slow consumer loses events but never blocks a write. Queues are drained into the
+ * subscribers' sinks by a small shared executor, which is also where the filters are evaluated.
+ * A subscriber gets the changes of ships that match its filter after the write, and a removal
+ * for ships that matched before it and no longer do; changes outside its view are not sent.
+ */
+@Component
+public class ShipChangeFeed implements DisposableBean {
+
+    public interface Sink {
+
+        void send(ShipChange change, boolean matches) throws IOException;
+
+        void resync() throws IOException;
+    }
+
+    private final int bufferSize;
+    private final ExecutorService executor;
+    private final CopyOnWriteArraySet<Subscription> subscriptions = new CopyOnWriteArraySet<>();
+
+    public ShipChangeFeed(@Value("${ship.events.bufferSize}") int bufferSize,
+                          @Value("${ship.events.threads}") int threads) {
+        this.bufferSize = bufferSize;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ship-change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public Subscription subscribe(ShipFilter filter, Sink sink) {
+        Subscription subscription = new Subscription(new ShipSpecification(filter), sink);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public void publish(ShipChange change) {
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(change);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    public class Subscription {
+
+        private final ShipSpecification specification;
+        private final Sink sink;
+        private final BlockingQueue<ShipChange> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean overflowed = new AtomicBoolean();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Subscription(ShipSpecification specification, Sink sink) {
+            this.specification = specification;
+            this.sink = sink;
+        }
+
+        public void cancel() {
+            subscriptions.remove(this);
+            queue.clear();
+        }
+
+        private void offer(ShipChange change) {
+            if (!queue.offer(change)) {
+                queue.clear();
+                overflowed.set(true);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    cancel();
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                if (overflowed.getAndSet(false)) {
+                    queue.clear();
+                    sink.resync();
+                }
+                ShipChange change;
+                while ((change = queue.poll()) != null) {
+                    boolean matches = change.getShip() != null && specification.matches(change.getShip());
+                    if (matches || matchedBefore(change)) {
+                        sink.send(change, matches);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                cancel();
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            if (!queue.isEmpty() || overflowed.get()) {
+                schedule();
+            }
+        }
+
+        /**
+         * Whether the subscriber had the ship in its view. A delete whose state was not read, as in
+         * bulk deletes, is sent to everyone.
+         */
+        private boolean matchedBefore(ShipChange change) {
+            if (change.getPrevious() == null) {
+                return change.getType() == ShipChange.Type.DELETE;
+            }
+            return specification.matches(change.getPrevious());
+        }
+    }
+}
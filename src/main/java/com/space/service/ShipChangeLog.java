@@ -0,0 +1,222 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.model.ShipChangeEntry;
+import com.space.model.ShipChanges;
+import com.space.repositoryDAO.ShipChangeRepository;
+import com.space.repositoryDAO.ShipRepository;
+import com.space.validation.GoneException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Persistent log of ship writes for incremental sync, kept as an outbox: every write appends a row
+ * in the transaction of the write itself, deletes append a tombstone. A batch read collapses the
+ * rows of one ship into its latest state, so a mirror that applies the batches in order ends up
+ * with the current fleet. With several shards the log lives on the home shard, so its sequence
+ * stays global; the row is then appended right after the write commits, as the two databases
+ * share no transaction.
+ * <p>
+ * Every {@code ship.changes.compactInterval} ms rows older than {@code ship.changes.retention} ms
+ * are compacted: rows followed by a later row of the same ship are dropped, and so are tombstones,
+ * whose highest sequence becomes the horizon. A cursor below the horizon may have missed a
+ * tombstone, so reading from it fails with 410 and the mirror has to start over from 0.
+ */
+@Component
+public class ShipChangeLog implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShipChangeLog.class);
+    private static final int COMPACT_CHUNK = 1000;
+
+    @Autowired
+    private ShipChangeRepository changeRepository;
+
+    @Autowired
+    private ShipRepository shipRepository;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final long gapWait;
+    private final long retention;
+    private final ScheduledExecutorService compactor;
+
+    public ShipChangeLog(@Value("${ship.changes.gapWait}") long gapWait,
+                         @Value("${ship.changes.retention}") long retention,
+                         @Value("${ship.changes.compactInterval}") long compactInterval) {
+        this.gapWait = gapWait;
+        this.retention = retention;
+        this.compactor = compactInterval > 0 ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ship-change-compactor");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        if (compactor != null) {
+            compactor.scheduleWithFixedDelay(this::compact, compactInterval, compactInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Appends to the transaction of the caller, which has to run the write of the ship in it.
+     */
+    public void record(Long shipId, boolean deleted) {
+        append(changes -> changes.save(new ShipChangeEntry(shipId, deleted)));
+    }
+
+    public void record(List<Long> shipIds, boolean deleted) {
+        List<ShipChangeEntry> entries = shipIds.stream()
+                .map(shipId -> new ShipChangeEntry(shipId, deleted))
+                .collect(Collectors.toList());
+        append(changes -> changes.saveAll(entries));
+    }
+
+    @Override
+    public void destroy() {
+        if (compactor != null) {
+            compactor.shutdown();
+        }
+    }
+
+    private void append(Function<ShipChangeRepository, Object> insert) {
+        if (!shards.isEnabled()) {
+            insert.apply(changeRepository);
+            return;
+        }
+        Runnable onHome = () -> shards.on(Shards.HOME, () -> newTransaction().execute(status -> insert.apply(changeRepository)));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    onHome.run();
+                }
+            });
+        } else {
+            onHome.run();
+        }
+    }
+
+    /**
+     * Without a lock around the appends, rows commit out of sequence order: a higher sequence may
+     * be visible while a lower one is still in flight. A batch therefore ends before a gap in the
+     * sequence as long as the row after the gap is younger than {@code ship.changes.gapWait} ms;
+     * a gap that outlives it is a rolled back write or a compacted row and is stepped over.
+     */
+    public ShipChanges changesSince(long since, int limit) {
+        List<ShipChangeEntry> entries = shards.on(Shards.HOME, () -> {
+            if (since > 0 && since < changeRepository.findHorizon()) {
+                throw new GoneException("Changes after " + since + " were compacted, sync again from 0");
+            }
+            return changeRepository.findBySeqGreaterThanOrderBySeq(since, PageRequest.of(0, limit));
+        });
+        boolean full = entries.size() == limit;
+        long settled = System.currentTimeMillis() - gapWait;
+        long previous = since;
+        for (int i = 0; i < entries.size(); i++) {
+            ShipChangeEntry entry = entries.get(i);
+            if (entry.getSeq() != previous + 1 && entry.getCreatedAt() > settled) {
+                entries = entries.subList(0, i);
+                full = false;
+                break;
+            }
+            previous = entry.getSeq();
+        }
+
+        Map<Long, Boolean> latest = new LinkedHashMap<>();
+        for (ShipChangeEntry entry : entries) {
+            latest.remove(entry.getShipId());
+            latest.put(entry.getShipId(), entry.isDeleted());
+        }
+
+        List<Long> updatedIds = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        for (Map.Entry<Long, Boolean> entry : latest.entrySet()) {
+            (entry.getValue() ? deleted : updatedIds).add(entry.getKey());
+        }
+        List<Ship> ships = findAllById(updatedIds);
+        if (ships.size() < updatedIds.size()) {
+            // Deleted after this batch was written, the tombstone follows in a later batch.
+            for (Ship ship : ships) {
+                updatedIds.remove(ship.getId());
+            }
+            deleted.addAll(updatedIds);
+        }
+
+        long next = entries.isEmpty() ? since : entries.get(entries.size() - 1).getSeq();
+        return new ShipChanges(ships, deleted, next, full);
+    }
+
+    void compact() {
+        try {
+            long before = System.currentTimeMillis() - retention;
+            int superseded = shards.on(Shards.HOME, () -> deleteAll(changes -> changes.findSuperseded(before, PageRequest.of(0, COMPACT_CHUNK))));
+            int tombstones = shards.on(Shards.HOME, () -> deleteAll(changes -> {
+                List<Long> seqs = changes.findTombstones(before, PageRequest.of(0, COMPACT_CHUNK));
+                if (!seqs.isEmpty()) {
+                    changes.raiseHorizon(seqs.get(seqs.size() - 1));
+                }
+                return seqs;
+            }));
+            if (superseded + tombstones > 0) {
+                LOGGER.info("Compacted the change log: {} superseded rows and {} tombstones", superseded, tombstones);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Compacting the change log failed", e);
+        }
+    }
+
+    /**
+     * Deletes the rows picked by {@code chunk} until it picks none, one short transaction per chunk.
+     */
+    private int deleteAll(Function<ShipChangeRepository, List<Long>> chunk) {
+        int deleted = 0;
+        while (true) {
+            int count = new TransactionTemplate(transactionManager).execute(status -> {
+                List<Long> seqs = chunk.apply(changeRepository);
+                return seqs.isEmpty() ? 0 : changeRepository.deleteBySeqs(seqs);
+            });
+            if (count == 0) {
+                return deleted;
+            }
+            deleted += count;
+        }
+    }
+
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    private List<Ship> findAllById(List<Long> ids) {
+        if (!shards.isEnabled()) {
+            return shipRepository.findAllById(ids);
+        }
+        Map<Integer, List<Long>> idsByShard = ids.stream().collect(Collectors.groupingBy(shards::ofId));
+        List<Ship> ships = new ArrayList<>();
+        idsByShard.forEach((shard, shardIds) -> ships.addAll(shards.on(shard, () -> shipRepository.findAllById(shardIds))));
+        return ships;
+    }
+}
@@ -0,0 +1,154 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Group commit for new ships. Creates arriving within {@code ship.create.batchWindow} milliseconds
+ * are written together by one batch writer call (one transaction), or sooner once
+ * {@code ship.create.batchSize} ships are waiting. If the batch fails, its ships are retried one by
+ * one, so every caller gets its own generated id or its own exception. A window of 0 turns
+ * batching off.
+ */
+@Component
+public class ShipCreateBatcher implements DisposableBean {
+
+    private final long window;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+    private Batch current;
+
+    public ShipCreateBatcher(@Value("${ship.create.batchWindow}") long window,
+                             @Value("${ship.create.batchSize}") int batchSize,
+                             @Value("${ship.create.batchThreads}") int threads) {
+        this.window = window;
+        this.batchSize = batchSize;
+        this.scheduler = window > 0 ? Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ship-create-batcher");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    public boolean isEnabled() {
+        return scheduler != null;
+    }
+
+    public void save(Ship ship, Consumer<List<Ship>> batchWriter, Consumer<Ship> singleWriter) {
+        PendingCreate create = new PendingCreate(ship);
+        synchronized (this) {
+            if (current == null) {
+                Batch batch = new Batch();
+                current = batch;
+                scheduler.schedule(() -> flush(batch, batchWriter, singleWriter), window, TimeUnit.MILLISECONDS);
+            }
+            current.creates.add(create);
+            if (current.creates.size() >= batchSize) {
+                Batch full = current;
+                current = null;
+                scheduler.execute(() -> flush(full, batchWriter, singleWriter));
+            }
+        }
+        await(create.result);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    private void flush(Batch batch, Consumer<List<Ship>> batchWriter, Consumer<Ship> singleWriter) {
+        List<PendingCreate> creates;
+        synchronized (this) {
+            if (batch.flushed) {
+                return;
+            }
+            batch.flushed = true;
+            if (current == batch) {
+                current = null;
+            }
+            creates = batch.creates;
+        }
+
+        List<Ship> ships = new ArrayList<>(creates.size());
+        for (PendingCreate create : creates) {
+            ships.add(create.ship);
+        }
+        try {
+            batchWriter.accept(ships);
+            for (PendingCreate create : creates) {
+                create.result.complete(null);
+            }
+            return;
+        } catch (RuntimeException e) {
+            if (creates.size() == 1) {
+                creates.get(0).result.completeExceptionally(e);
+                return;
+            }
+        } catch (Throwable e) {
+            // Not a failure of one ship, so no retries; the callers must not wait on the results forever.
+            for (PendingCreate create : creates) {
+                create.result.completeExceptionally(e);
+            }
+            return;
+        }
+        for (PendingCreate create : creates) {
+            try {
+                // The failed batch left an id and a version behind; with either set, save() merges a
+                // copy instead of persisting the caller's ship.
+                create.ship.setId(null);
+                create.ship.setVersion(null);
+                singleWriter.accept(create.ship);
+                create.result.complete(null);
+            } catch (Throwable e) {
+                create.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void await(CompletableFuture<Void> result) {
+        try {
+            result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a batched create", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static class Batch {
+
+        private final List<PendingCreate> creates = new ArrayList<>();
+        private boolean flushed;
+    }
+
+    private static class PendingCreate {
+
+        private final Ship ship;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        PendingCreate(Ship ship) {
+            this.ship = ship;
+        }
+    }
+}
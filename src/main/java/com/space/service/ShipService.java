@@ -1,16 +1,19 @@
 package com.space.service;
 
 import com.space.model.Ship;
-import com.space.model.ShipType;
+import com.space.model.ShipFilter;
+import com.space.model.ShipOperation;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.domain.Sort;
 
-import java.util.List;
+import java.util.function.Consumer;
 
 public interface ShipService {
 
-    public Page<Ship> getShips(Specification<Ship> specification, Pageable sortedBy);
+    public Page<Ship> getShips(ShipFilter filter, Pageable sortedBy);
+
+    public void forEachShip(ShipFilter filter, Sort sortedBy, Consumer<Ship> action);
 
     public void saveNewShip(Ship ship);
 
@@ -18,26 +21,14 @@ public interface ShipService {
 
     public void deleteShip(Long id);
 
-    public Ship updateShip(Ship ship, Long id);
-
-    public boolean checkId(String id);
-
-
-    Specification<Ship> selectByName(String name);
+    public long deleteShips(ShipFilter filter);
 
-    Specification<Ship> selectByPlanet(String planet);
+    public Ship updateShip(Ship ship, Long id, Long expectedVersion);
 
-    Specification<Ship> selectByShipType(ShipType shipType);
+    public Ship applyOperation(Long id, ShipOperation operation, Long expectedVersion);
 
-    Specification<Ship> selectByProdDate(Long after, Long before);
-
-    Specification<Ship> selectByUsed(Boolean isUsed);
-
-    Specification<Ship> selectBySpeed(Double minSpeed, Double maxSpeed);
-
-    Specification<Ship> selectByCrew(Integer minCrew, Integer maxCrew);
+    public boolean checkId(String id);
 
-    Specification<Ship> selectByRating(Double minRating, Double maxRating);
 
-    Integer getShipCount(Specification<Ship> specification);
+    Integer getShipCount(ShipFilter filter);
 }
@@ -1,31 +1,88 @@
 package com.space.service;
 
 import com.space.model.Ship;
+import com.space.model.ShipChange;
+import com.space.model.ShipFilter;
+import com.space.model.ShipOperation;
 import com.space.model.ShipType;
 import com.space.repositoryDAO.ShipRepository;
 import com.space.validation.BadRequestException;
+import com.space.validation.ConflictException;
 import com.space.validation.NotFountShipException;
+import com.space.validation.PreconditionFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Predicate;
-import javax.persistence.criteria.Root;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ShipServiceImpl implements ShipService {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShipServiceImpl.class);
+    private static final int UPDATE_ATTEMPTS = 3;
+
     @Autowired
     private ShipRepository repository;
 
+    @Autowired
+    private FleetVersions fleetVersions;
+
+    @Autowired
+    private ShipUpdateCoalescer updateCoalescer;
+
+    @Autowired
+    private ShipCreateBatcher createBatcher;
+
+    @Autowired
+    private ShipChangeFeed changeFeed;
+
+    @Autowired
+    private ShipChangeLog changeLog;
+
+    @Autowired
+    private AuditJournal auditJournal;
+
+    @Autowired
+    private Shards shards;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${ship.delete.chunkSize}")
+    private int deleteChunkSize;
+
+    @Value("${ship.stream.fetchSize}")
+    private int streamFetchSize;
+
     @Override
-    public Page<Ship> getShips(Specification<Ship> specification, Pageable sortedBy) {
-        return repository.findAll(specification, sortedBy);
+    @Transactional(readOnly = true)
+    public Page<Ship> getShips(ShipFilter filter, Pageable sortedBy) {
+        return repository.findAll(new ShipSpecification(filter), sortedBy);
+    }
+
+    /**
+     * The action sees each ship as its row is fetched; the connection is held until the last one.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachShip(ShipFilter filter, Sort sortedBy, Consumer<Ship> action) {
+        try (Stream<Ship> ships = repository.stream(new ShipSpecification(filter), sortedBy, streamFetchSize)) {
+            ships.forEach(action);
+        }
     }
 
     @Override
@@ -35,11 +92,20 @@ public class ShipServiceImpl implements ShipService {
             ship.setUsed(false);
         }
         ship.setRating(countRating(ship.getSpeed(), ship.isUsed(), ship.getProdDate()));
-        repository.save(ship);
+        ship.setId(null);
+        ship.setVersion(null);
+        // A batch would mix ships of several shards into one transaction.
+        if (createBatcher.isEnabled() && !shards.isEnabled()) {
+            createBatcher.save(ship, this::insertShips, this::insertShip);
+        } else {
+            insertShip(ship);
+        }
+        shipChanged(new ShipChange(ShipChange.Type.CREATE, ship.getId(), ship, null));
     }
 
 
     @Override
+    @Transactional(readOnly = true)
     public Ship getShip(Long id) {
         Ship ship = null;
         Optional<Ship> optional = repository.findById(id);
@@ -49,56 +115,248 @@ public class ShipServiceImpl implements ShipService {
         return ship;
     }
 
+    private void insertShip(Ship ship) {
+        inTransaction(() -> {
+            repository.save(ship);
+            changeLog.record(ship.getId(), false);
+            return ship;
+        });
+    }
+
+    private void insertShips(List<Ship> ships) {
+        inTransaction(() -> {
+            repository.saveAll(ships);
+            changeLog.record(ships.stream().map(Ship::getId).collect(Collectors.toList()), false);
+            return ships;
+        });
+    }
+
     @Override
     public void deleteShip(Long id) {
-        repository.deleteById(id);
+        Ship previous = inTransaction(() -> {
+            Ship deleted = repository.findById(id).orElse(null);
+            repository.deleteById(id);
+            changeLog.record(id, true);
+            return deleted;
+        });
+        shipChanged(new ShipChange(ShipChange.Type.DELETE, id, null, previous));
     }
 
+    /**
+     * Deletes the ships matching a non-empty filter in chunks of {@code ship.delete.chunkSize},
+     * each in a short transaction of its own, so no lock is held for the whole run. A ship created
+     * or changed into the filter while the delete runs is only caught if its id is still ahead.
+     */
     @Override
-    public Ship updateShip(Ship ship, Long id) {
+    public long deleteShips(ShipFilter filter) {
+        if (filter.isEmpty()) {
+            throw new BadRequestException("Deleting ships needs at least one filter");
+        }
+        ShipSpecification specification = new ShipSpecification(filter);
+        long deleted = 0;
+        long lastId = 0;
+        while (true) {
+            long afterId = lastId;
+            List<Long> ids = inTransaction(() -> {
+                List<Long> chunk = repository.deleteChunk(specification, afterId, deleteChunkSize);
+                changeLog.record(chunk, true);
+                return chunk;
+            });
+            if (ids.isEmpty()) {
+                break;
+            }
+            shipsDeleted(ids);
+            deleted += ids.size();
+            lastId = ids.get(ids.size() - 1);
+            LOGGER.info("Deleted {} ships so far, up to id {}", deleted, lastId);
+            if (ids.size() < deleteChunkSize) {
+                break;
+            }
+        }
+        LOGGER.info("Deleted {} ships", deleted);
+        return deleted;
+    }
+
+    @Override
+    public Ship updateShip(Ship ship, Long id, Long expectedVersion) {
+        if (expectedVersion == null && updateCoalescer.isEnabled() && !shards.isEnabled()) {
+            checkUpdate(ship);
+            return updateCoalescer.update(id, ship, (patch, shipId) -> updateWithRetries(patch, shipId, null));
+        }
+        return updateWithRetries(ship, id, expectedVersion);
+    }
+
+    /**
+     * Without an expected version a write that lost a race with another one is retried on the
+     * fresh state, up to {@code UPDATE_ATTEMPTS} times, then answered with 409.
+     */
+    private Ship updateWithRetries(Ship ship, Long id, Long expectedVersion) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return applyUpdate(ship, id, expectedVersion);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (expectedVersion != null) {
+                    throw new PreconditionFailedException("The ship was modified by another request");
+                }
+                if (attempt == UPDATE_ATTEMPTS) {
+                    throw new ConflictException("The ship is being modified by other requests");
+                }
+            }
+        }
+    }
+
+    private Ship applyUpdate(Ship ship, Long id, Long expectedVersion) {
+        ShipChange change = inTransaction(() -> writeUpdate(ship, id, expectedVersion));
+        shipChanged(change);
+        return change.getShip();
+    }
+
+    private ShipChange writeUpdate(Ship ship, Long id, Long expectedVersion) {
         if (!repository.existsById(id)) {
             throw new NotFountShipException();//404
         }
+        checkUpdate(ship);
 
         Ship editedShip = repository.findById(id).get();
+        if (expectedVersion != null && !expectedVersion.equals(editedShip.getVersion())) {
+            throw new PreconditionFailedException("The ship version is " + editedShip.getVersion());
+        }
+        Ship previous = snapshot(editedShip);
 
         if (ship.getName() != null) {
-            checkNameAndPlanet(ship.getName());
             editedShip.setName(ship.getName());
         }
-
         if (ship.getPlanet() != null) {
-            checkNameAndPlanet(ship.getPlanet());
             editedShip.setPlanet(ship.getPlanet());
         }
-
         if (ship.getShipType() != null) {
-            checkShipType(ship.getShipType());
             editedShip.setShipType(ship.getShipType());
         }
-
         if (ship.getProdDate() != null) {
-            checkProdDate(ship.getProdDate());
             editedShip.setProdDate(ship.getProdDate());
         }
-
         if (ship.getSpeed() != null) {
-            checkSpeed(ship.getSpeed());
             editedShip.setSpeed(ship.getSpeed());
         }
-
         if (ship.isUsed() != null) {
             editedShip.setUsed(ship.isUsed());
         }
-
         if (ship.getCrewSize() != null) {
-            checkCrew(ship.getCrewSize());
             editedShip.setCrewSize(ship.getCrewSize());
         }
         Double rating = countRating(editedShip.getSpeed(), editedShip.isUsed(), editedShip.getProdDate());
         editedShip.setRating(rating);
 
-        return repository.saveAndFlush(editedShip);
+        Ship savedShip = repository.saveAndFlush(editedShip);
+        changeLog.record(id, false);
+        return new ShipChange(ShipChange.Type.UPDATE, id, savedShip, previous);
+    }
+
+    @Override
+    public Ship applyOperation(Long id, ShipOperation operation, Long expectedVersion) {
+        int crewSizeDelta = operation.getCrewSizeDelta() == null ? 0 : operation.getCrewSizeDelta();
+        if (Math.abs(crewSizeDelta) > 9999) {
+            throw new BadRequestException("Incorrect crew size");
+        }
+        if (crewSizeDelta == 0 && operation.getIsUsed() == null) {
+            throw new BadRequestException("The operation changes nothing");
+        }
+
+        ShipChange change = inTransaction(() -> {
+            Ship previous = snapshot(getShip(id));
+            int updated = repository.applyOperation(id, crewSizeDelta,
+                    operation.getIsUsed() != null, Boolean.TRUE.equals(operation.getIsUsed()),
+                    operation.getExpectedIsUsed() != null, Boolean.TRUE.equals(operation.getExpectedIsUsed()),
+                    expectedVersion != null, expectedVersion == null ? 0 : expectedVersion);
+            if (updated == 0) {
+                Ship current = getShip(id);
+                if (current == null) {
+                    throw new NotFountShipException();
+                }
+                if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+                    throw new PreconditionFailedException("The ship version is " + current.getVersion());
+                }
+                if (current.getCrewSize() == null) {
+                    // crewSize + delta is NULL in the bounds check of the update.
+                    throw new ConflictException("The ship has no crew size");
+                }
+                checkCrew(current.getCrewSize() + crewSizeDelta);
+                if (operation.getExpectedIsUsed() != null && !operation.getExpectedIsUsed().equals(current.isUsed())) {
+                    throw new ConflictException("The ship's isUsed is " + current.isUsed() + ", not " + operation.getExpectedIsUsed());
+                }
+                // Every condition holds on the state read back, so another write got in between.
+                throw new ConflictException("The ship was modified by another request");
+            }
+            changeLog.record(id, false);
+            return new ShipChange(ShipChange.Type.UPDATE, id, getShip(id), previous);
+        });
+        shipChanged(change);
+        return change.getShip();
+    }
+
+    /**
+     * Runs a write together with its change log row, so the row commits exactly when the write does.
+     */
+    private <T> T inTransaction(Supplier<T> write) {
+        return new TransactionTemplate(transactionManager).execute(status -> write.get());
+    }
+
+    private void shipChanged(ShipChange change) {
+        fleetVersions.shipChanged(change.getId(), change.getShip() == null ? null : change.getShip().getVersion());
+        auditJournal.append(change.getType(), change.getId(), change.getShip());
+        changeFeed.publish(change);
+    }
+
+    private void shipsDeleted(List<Long> ids) {
+        for (Long id : ids) {
+            fleetVersions.shipChanged(id, null);
+        }
+        for (Long id : ids) {
+            auditJournal.append(ShipChange.Type.DELETE, id, null);
+            changeFeed.publish(new ShipChange(ShipChange.Type.DELETE, id, null, null));
+        }
+    }
+
+    /**
+     * A detached copy, for the state before a write that changes the managed entity in place.
+     */
+    private static Ship snapshot(Ship ship) {
+        if (ship == null) {
+            return null;
+        }
+        Ship copy = new Ship();
+        copy.setId(ship.getId());
+        copy.setName(ship.getName());
+        copy.setPlanet(ship.getPlanet());
+        copy.setShipType(ship.getShipType());
+        copy.setProdDate(ship.getProdDate());
+        copy.setUsed(ship.isUsed());
+        copy.setSpeed(ship.getSpeed());
+        copy.setCrewSize(ship.getCrewSize());
+        copy.setRating(ship.getRating());
+        copy.setVersion(ship.getVersion());
+        return copy;
+    }
+
+    public void checkUpdate(Ship ship) {
+        if (ship.getName() != null) {
+            checkNameAndPlanet(ship.getName());
+        }
+        if (ship.getPlanet() != null) {
+            checkNameAndPlanet(ship.getPlanet());
+        }
+        if (ship.getShipType() != null) {
+            checkShipType(ship.getShipType());
+        }
+        if (ship.getProdDate() != null) {
+            checkProdDate(ship.getProdDate());
+        }
+        if (ship.getSpeed() != null) {
+            checkSpeed(ship.getSpeed());
+        }
+        if (ship.getCrewSize() != null) {
+            checkCrew(ship.getCrewSize());
+        }
     }
 
     public void checkShip(Ship ship) {
@@ -132,150 +390,9 @@ public class ShipServiceImpl implements ShipService {
     }
 
     @Override
-    public Specification<Ship> selectByName(String name) {
-        return new Specification<Ship>() {
-            @Override
-            public Predicate toPredicate(Root<Ship> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-                if (name == null) {
-                    return null;
-                }
-                return criteriaBuilder.like(root.get("name"), "%" + name + "%");
-            }
-        };
-    }
-
-    @Override
-    public Specification<Ship> selectByPlanet(String planet) {
-        return new Specification<Ship>() {
-            @Override
-            public Predicate toPredicate(Root<Ship> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-                if (planet == null) {
-                    return null;
-                }
-                return criteriaBuilder.like(root.get("planet"), "%" + planet + "%");
-            }
-        };
-    }
-
-    @Override
-    public Specification<Ship> selectByShipType(ShipType shipType) {
-        return new Specification<Ship>() {
-            @Override
-            public Predicate toPredicate(Root<Ship> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-                if (shipType == null) {
-                    return null;
-                }
-                return criteriaBuilder.equal(root.get("shipType"), shipType);
-            }
-        };
-    }
-
-    @Override
-    public Specification<Ship> selectByProdDate(Long after, Long before) {
-        return new Specification<Ship>() {
-            @Override
-            public Predicate toPredicate(Root<Ship> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-                if (after == null && before == null) {
-                    return null;
-                }
-                if (after == null) {
-                    Date tempDate = new Date(before);
-                    return criteriaBuilder.lessThanOrEqualTo(root.get("prodDate"), tempDate);
-                }
-                if (before == null) {
-                    Date tempDate = new Date(after);
-                    return criteriaBuilder.greaterThanOrEqualTo(root.get("prodDate"), tempDate);
-                }
-                Calendar beforeCalendar = new GregorianCalendar();
-                beforeCalendar.setTime(new Date(before));
-                beforeCalendar.set(Calendar.HOUR, 0);
-                beforeCalendar.add(Calendar.MILLISECOND, -1);
-
-                Date tempAfter = new Date(after);
-                Date tempBefore = beforeCalendar.getTime();
-
-                return criteriaBuilder.between(root.get("prodDate"), tempAfter, tempBefore);
-            }
-        };
-    }
-
-    @Override
-    public Specification<Ship> selectByUsed(Boolean isUsed) {
-        return new Specification<Ship>() {
-            @Override
-            public Predicate toPredicate(Root<Ship> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-                if (isUsed == null) {
-                    return null;
-                }
-                if (isUsed) {
-                    return criteriaBuilder.isTrue(root.get("isUsed"));
-                } else {
-                    return criteriaBuilder.isFalse(root.get("isUsed"));
-                }
-            }
-        };
-    }
-
-    @Override
-    public Specification<Ship> selectBySpeed(Double minSpeed, Double maxSpeed) {
-        return new Specification<Ship>() {
-            @Override
-            public Predicate toPredicate(Root<Ship> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-                if (minSpeed == null && maxSpeed == null) {
-                    return null;
-                }
-                if (minSpeed == null) {
-                    return criteriaBuilder.lessThanOrEqualTo(root.get("speed"), maxSpeed);
-                }
-                if (maxSpeed == null) {
-                    return criteriaBuilder.greaterThanOrEqualTo(root.get("speed"), minSpeed);
-                }
-                return criteriaBuilder.between(root.get("speed"), minSpeed, maxSpeed);
-            }
-        };
-    }
-
-    @Override
-    public Specification<Ship> selectByCrew(Integer minCrew, Integer maxCrew) {
-        return new Specification<Ship>() {
-            @Override
-            public Predicate toPredicate(Root<Ship> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-                if (minCrew == null && maxCrew == null) {
-                    return null;
-                }
-                if (minCrew == null) {
-                    return criteriaBuilder.lessThanOrEqualTo(root.get("crewSize"), maxCrew);
-                }
-                if (maxCrew == null) {
-                    return criteriaBuilder.greaterThanOrEqualTo(root.get("crewSize"), minCrew);
-                }
-                return criteriaBuilder.between(root.get("crewSize"), minCrew, maxCrew);
-            }
-        };
-    }
-
-    @Override
-    public Specification<Ship> selectByRating(Double minRating, Double maxRating) {
-        return new Specification<Ship>() {
-            @Override
-            public Predicate toPredicate(Root<Ship> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
-                if (maxRating == null && minRating == null) {
-                    return null;
-                }
-                if (minRating == null) {
-                    return criteriaBuilder.lessThanOrEqualTo(root.get("rating"), maxRating);
-                }
-                if (maxRating == null) {
-                    return criteriaBuilder.greaterThanOrEqualTo(root.get("rating"), minRating);
-                }
-                return criteriaBuilder.between(root.get("rating"), minRating, maxRating);
-            }
-        };
-    }
-
-    @Override
-    public Integer getShipCount(Specification<Ship> specification) {
-        return repository.findAll(specification).size();
+    @Transactional(readOnly = true)
+    public Integer getShipCount(ShipFilter filter) {
+        return (int) repository.count(new ShipSpecification(filter));
     }
 
     public void checkNameAndPlanet(String name) {
@@ -0,0 +1,151 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.model.ShipFilter;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+/**
+ * Builds the whole WHERE clause for a {@link ShipFilter} in one pass. Only the presence of each
+ * filter field decides the query shape, values always go out as bind parameters
+ * (see hibernate.criteria.literal_handling_mode in AppConfig), so every request with the same
+ * set of filters reuses one cached Hibernate query plan.
+ */
+public class ShipSpecification implements Specification<Ship> {
+
+    private final ShipFilter filter;
+
+    public ShipSpecification(ShipFilter filter) {
+        this.filter = filter;
+    }
+
+    @Override
+    public Predicate toPredicate(Root<Ship> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        List<Predicate> predicates = new ArrayList<>();
+
+        if (filter.getName() != null) {
+            predicates.add(criteriaBuilder.like(root.get("name"), "%" + filter.getName() + "%"));
+        }
+        if (filter.getPlanet() != null) {
+            predicates.add(criteriaBuilder.like(root.get("planet"), "%" + filter.getPlanet() + "%"));
+        }
+        if (filter.getShipType() != null) {
+            predicates.add(criteriaBuilder.equal(root.get("shipType"), filter.getShipType()));
+        }
+        Predicate prodDate = prodDate(root, criteriaBuilder);
+        if (prodDate != null) {
+            predicates.add(prodDate);
+        }
+        if (filter.getIsUsed() != null) {
+            predicates.add(criteriaBuilder.equal(root.get("isUsed"), filter.getIsUsed()));
+        }
+        Predicate speed = range(root.get("speed"), filter.getMinSpeed(), filter.getMaxSpeed(), criteriaBuilder);
+        if (speed != null) {
+            predicates.add(speed);
+        }
+        Predicate crew = range(root.get("crewSize"), filter.getMinCrewSize(), filter.getMaxCrewSize(), criteriaBuilder);
+        if (crew != null) {
+            predicates.add(crew);
+        }
+        Predicate rating = range(root.get("rating"), filter.getMinRating(), filter.getMaxRating(), criteriaBuilder);
+        if (rating != null) {
+            predicates.add(rating);
+        }
+
+        return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+    }
+
+    /**
+     * Evaluates the same filter in memory. Substring matches ignore case, like the MySQL
+     * collation of the ship table.
+     */
+    public boolean matches(Ship ship) {
+        return contains(ship.getName(), filter.getName())
+                && contains(ship.getPlanet(), filter.getPlanet())
+                && (filter.getShipType() == null || filter.getShipType() == ship.getShipType())
+                && prodDateMatches(ship.getProdDate())
+                && (filter.getIsUsed() == null || filter.getIsUsed().equals(ship.isUsed()))
+                && inRange(ship.getSpeed(), filter.getMinSpeed(), filter.getMaxSpeed())
+                && inRange(ship.getCrewSize(), filter.getMinCrewSize(), filter.getMaxCrewSize())
+                && inRange(ship.getRating(), filter.getMinRating(), filter.getMaxRating());
+    }
+
+    private Predicate prodDate(Root<Ship> root, CriteriaBuilder criteriaBuilder) {
+        Long after = filter.getAfter();
+        Long before = filter.getBefore();
+        if (after == null && before == null) {
+            return null;
+        }
+        Path<Date> prodDate = root.get("prodDate");
+        if (after == null) {
+            return criteriaBuilder.lessThanOrEqualTo(prodDate, ProdDateRange.of(null, before).getLast());
+        }
+        if (before == null) {
+            return criteriaBuilder.greaterThanOrEqualTo(prodDate, ProdDateRange.of(after, null).getFirst());
+        }
+        ProdDateRange range = ProdDateRange.of(after, upperBound(before).getTime());
+        return criteriaBuilder.between(prodDate, range.getFirst(), range.getLast());
+    }
+
+    private boolean prodDateMatches(Date prodDate) {
+        Long after = filter.getAfter();
+        Long before = filter.getBefore();
+        if (after == null && before == null) {
+            return true;
+        }
+        if (prodDate == null) {
+            return false;
+        }
+        long time = prodDate.getTime();
+        if (after == null) {
+            return time <= before;
+        }
+        if (before == null) {
+            return time >= after;
+        }
+        return time >= after && time <= upperBound(before).getTime();
+    }
+
+    private static Date upperBound(long before) {
+        Calendar beforeCalendar = new GregorianCalendar();
+        beforeCalendar.setTime(new Date(before));
+        beforeCalendar.set(Calendar.HOUR, 0);
+        beforeCalendar.add(Calendar.MILLISECOND, -1);
+        return beforeCalendar.getTime();
+    }
+
+    private static boolean contains(String value, String part) {
+        return part == null || value != null && value.toLowerCase().contains(part.toLowerCase());
+    }
+
+    private static <T extends Comparable<? super T>> boolean inRange(T value, T min, T max) {
+        if (min == null && max == null) {
+            return true;
+        }
+        return value != null && (min == null || value.compareTo(min) >= 0) && (max == null || value.compareTo(max) <= 0);
+    }
+
+    private static <T extends Comparable<? super T>> Predicate range(Path<T> path, T min, T max,
+                                                                     CriteriaBuilder criteriaBuilder) {
+        if (min == null && max == null) {
+            return null;
+        }
+        if (min == null) {
+            return criteriaBuilder.lessThanOrEqualTo(path, max);
+        }
+        if (max == null) {
+            return criteriaBuilder.greaterThanOrEqualTo(path, min);
+        }
+        return criteriaBuilder.between(path, min, max);
+    }
+}
@@ -0,0 +1,135 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Merges partial updates of the same ship that arrive within {@code ship.update.coalesceWindow}
+ * milliseconds into one write. The first update for an id opens a window, later ones overwrite its
+ * non-null fields, and when the window closes the merged patch is written once. Every caller then
+ * gets the same saved ship, or the same exception. A window of 0 turns coalescing off.
+ */
+@Component
+public class ShipUpdateCoalescer implements DisposableBean {
+
+    private final long window;
+    private final ScheduledExecutorService scheduler;
+    private final ConcurrentMap<Long, PendingUpdate> pending = new ConcurrentHashMap<>();
+
+    public ShipUpdateCoalescer(@Value("${ship.update.coalesceWindow}") long window,
+                               @Value("${ship.update.coalesceThreads}") int threads) {
+        this.window = window;
+        this.scheduler = window > 0 ? Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ship-update-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    public boolean isEnabled() {
+        return scheduler != null;
+    }
+
+    public Ship update(Long id, Ship patch, BiFunction<Ship, Long, Ship> writer) {
+        PendingUpdate update;
+        while (true) {
+            PendingUpdate created = new PendingUpdate();
+            PendingUpdate current = pending.putIfAbsent(id, created);
+            update = current == null ? created : current;
+            if (update.add(patch)) {
+                if (update == created) {
+                    PendingUpdate scheduled = update;
+                    scheduler.schedule(() -> flush(id, scheduled, writer), window, TimeUnit.MILLISECONDS);
+                }
+                break;
+            }
+        }
+        return await(update.result);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    private void flush(Long id, PendingUpdate update, BiFunction<Ship, Long, Ship> writer) {
+        pending.remove(id, update);
+        Ship patch = update.close();
+        try {
+            update.result.complete(writer.apply(patch, id));
+        } catch (Throwable e) {
+            // Any failure has to reach the callers, or they wait on the result forever.
+            update.result.completeExceptionally(e);
+        }
+    }
+
+    private Ship await(CompletableFuture<Ship> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a coalesced update", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static class PendingUpdate {
+
+        private final Ship patch = new Ship();
+        private final CompletableFuture<Ship> result = new CompletableFuture<>();
+        private boolean closed;
+
+        synchronized boolean add(Ship update) {
+            if (closed) {
+                return false;
+            }
+            if (update.getName() != null) {
+                patch.setName(update.getName());
+            }
+            if (update.getPlanet() != null) {
+                patch.setPlanet(update.getPlanet());
+            }
+            if (update.getShipType() != null) {
+                patch.setShipType(update.getShipType());
+            }
+            if (update.getProdDate() != null) {
+                patch.setProdDate(update.getProdDate());
+            }
+            if (update.isUsed() != null) {
+                patch.setUsed(update.isUsed());
+            }
+            if (update.getSpeed() != null) {
+                patch.setSpeed(update.getSpeed());
+            }
+            if (update.getCrewSize() != null) {
+                patch.setCrewSize(update.getCrewSize());
+            }
+            return true;
+        }
+
+        synchronized Ship close() {
+            closed = true;
+            return patch;
+        }
+    }
+}
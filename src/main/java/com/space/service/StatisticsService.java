@@ -0,0 +1,10 @@
+package com.space.service;
+
+import java.util.Map;
+
+public interface StatisticsService {
+
+    Map<String, Object> getQueryStatistics();
+
+    Map<String, Object> getCacheStatistics();
+}
@@ -0,0 +1,68 @@
+package com.space.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Service
+public class StatisticsServiceImpl implements StatisticsService {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public Map<String, Object> getQueryStatistics() {
+        Statistics statistics = hibernateStatistics();
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long misses = statistics.getQueryPlanCacheMissCount();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("queryPlanCacheHitCount", hits);
+        result.put("queryPlanCacheMissCount", misses);
+        result.put("queryPlanCacheHitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        result.put("queryExecutionCount", statistics.getQueryExecutionCount());
+        result.put("queryExecutionMaxTime", statistics.getQueryExecutionMaxTime());
+        result.put("prepareStatementCount", statistics.getPrepareStatementCount());
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> getCacheStatistics() {
+        Statistics statistics = hibernateStatistics();
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> regionResult = new LinkedHashMap<>();
+            regionResult.put("hitCount", region.getHitCount());
+            regionResult.put("missCount", region.getMissCount());
+            regionResult.put("putCount", region.getPutCount());
+            regionResult.put("hitRatio", hitRatio(region.getHitCount(), region.getMissCount()));
+            regionResult.put("elementCountInMemory", region.getElementCountInMemory());
+            result.put(regionName, regionResult);
+        }
+        Map<String, Object> queries = new LinkedHashMap<>();
+        queries.put("hitCount", statistics.getQueryCacheHitCount());
+        queries.put("missCount", statistics.getQueryCacheMissCount());
+        queries.put("putCount", statistics.getQueryCachePutCount());
+        queries.put("hitRatio", hitRatio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()));
+        result.put("queryCache", queries);
+        return result;
+    }
+
+    private static double hitRatio(long hits, long misses) {
+        return hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+    }
+
+    private Statistics hibernateStatistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -1,7 +1,39 @@
+const PAGE_CACHE_SIZE = 20;
+const FRESH_MILLIS = 5000;
+const DEFAULT_PAGE_SIZE = 3;
+let pageCache = new Map();
+let latestLoad = 0;
+
 function loadContent(root, suffix, currentPage) {
+    let load = ++latestLoad;
+    Promise.all([Get(root + "/rest/ships" + suffix), Get(root + "/rest/ships/count" + suffix)])
+        .then(function (results) {
+            if (load !== latestLoad) {
+                return;
+            }
+            renderContent(root, results[0], results[1], currentPage);
+            let next = nextPageSuffix(suffix, currentPage, results[1]);
+            if (next !== null) {
+                Get(root + "/rest/ships" + next).catch(reportFailure("GET", root + "/rest/ships" + next));
+            }
+        })
+        .catch(reportFailure("GET", root + "/rest/ships" + suffix));
+}
 
-    let objects = JSON.parse(Get(root + "/rest/ships" + suffix).responseText);
-    let shipsCount = Get(root + "/rest/ships/count" + suffix).responseText;
+// The page after the loaded one, with the filters and page size of the loaded suffix rather than
+// the form: a suffix without pageSize was served DEFAULT_PAGE_SIZE ships.
+function nextPageSuffix(suffix, currentPage, shipsCount) {
+    let pageSize = /[?&]pageSize=(\d+)/.exec(suffix);
+    if (currentPage * (pageSize ? +pageSize[1] : DEFAULT_PAGE_SIZE) >= shipsCount) {
+        return null;
+    }
+    if (/[?&]pageNumber=\d+/.test(suffix)) {
+        return suffix.replace(/([?&]pageNumber=)\d+/, "$1" + currentPage);
+    }
+    return suffix + (suffix.indexOf("?") === -1 ? "?" : "&") + "pageNumber=" + currentPage;
+}
+
+function renderContent(root, objects, shipsCount, currentPage) {
     document.getElementById("count").innerText = "Ships found: " + shipsCount;
     let table = document.getElementById("mainTable");
     table.innerHTML = "";
@@ -73,53 +105,101 @@ function loadContent(root, suffix, currentPage) {
 }
 
 function Get(requestUrl) {
-    let Httpreq = new XMLHttpRequest(); // a new request
-    Httpreq.open("GET", requestUrl, false);
-    Httpreq.send(null);
-    if (Httpreq.status === 400) {
-        $('#error-text').text("Bad request to GET " + requestUrl);
-        $('#myModal').modal('show');
+    let cached = pageCache.get(requestUrl);
+    if (cached && Date.now() - cached.time < FRESH_MILLIS) {
+        return Promise.resolve(cached.body);
     }
-    if (Httpreq.status === 404) {
-        $('#error-text').text("Not found GET " + requestUrl);
-        $('#myModal').modal('show');
+    let headers = {"Accept": "application/json"};
+    if (cached) {
+        headers["If-None-Match"] = cached.eTag;
+    }
+    return fetch(requestUrl, {headers: headers, cache: "no-store"}).then(function (response) {
+        if (response.status === 304) {
+            remember(requestUrl, cached.eTag, cached.body);
+            return cached.body;
+        }
+        if (!response.ok) {
+            throw showError(response.status, "GET", requestUrl);
+        }
+        return response.json().then(function (body) {
+            let eTag = response.headers.get("ETag");
+            if (eTag) {
+                remember(requestUrl, eTag, body);
+            }
+            return body;
+        });
+    });
+}
+
+function remember(requestUrl, eTag, body) {
+    pageCache.delete(requestUrl);
+    pageCache.set(requestUrl, {eTag: eTag, body: body, time: Date.now()});
+    if (pageCache.size > PAGE_CACHE_SIZE) {
+        pageCache.delete(pageCache.keys().next().value);
     }
-    return Httpreq;
+}
+
+function expirePageCache() {
+    pageCache.forEach(function (entry) {
+        entry.time = 0;
+    });
 }
 
 function post(requestUrl, body) {
-    let Httpreq = new XMLHttpRequest(); // a new request
-    Httpreq.open("POST", requestUrl, false);
-    Httpreq.setRequestHeader("Content-type", "application/json;charset=UTF-8");
-    Httpreq.send(body);
-    if (Httpreq.status === 400) {
-        $('#error-text').text("Bad request to POST " + requestUrl);
-        $('#myModal').modal('show');
-    }
-    if (Httpreq.status === 404) {
-        $('#error-text').text("Not found POST " + requestUrl);
-        $('#myModal').modal('show');
-    }
-    return Httpreq;
+    return send("POST", requestUrl, {
+        method: "POST",
+        headers: {"Content-type": "application/json;charset=UTF-8"},
+        body: body
+    });
 }
 
 function Delete(requestUrl) {
-    let Httpreq = new XMLHttpRequest(); // a new request
-    Httpreq.open("DELETE", requestUrl, false);
-    Httpreq.send(null);
-    console.log(Httpreq.status);
-    if (Httpreq.status === 400) {
-        $('#error-text').text("Bad request to DELETE " + requestUrl);
+    return send("DELETE", requestUrl, {method: "DELETE"});
+}
+
+function send(method, requestUrl, init) {
+    return fetch(requestUrl, init).then(function (response) {
+        expirePageCache();
+        if (!response.ok) {
+            showError(response.status, method, requestUrl);
+        }
+        return response;
+    });
+}
+
+function showError(status, method, requestUrl) {
+    if (status === 400) {
+        $('#error-text').text("Bad request to " + method + " " + requestUrl);
         $('#myModal').modal('show');
     }
-    if (Httpreq.status === 404) {
-        $('#error-text').text("Not found DELETE " + requestUrl);
+    if (status === 404) {
+        $('#error-text').text("Not found " + method + " " + requestUrl);
         $('#myModal').modal('show');
     }
-    return Httpreq;
+    if (status !== 400 && status !== 404) {
+        $('#error-text').text(method + " " + requestUrl + (status ? " failed with status " + status : " failed"));
+        $('#myModal').modal('show');
+    }
+    let error = new Error(method + " " + requestUrl + " failed with status " + status);
+    error.reported = true;
+    return error;
+}
+
+// For promise chains: failures that did not come with a response (network errors, exceptions
+// while rendering) are shown too, those that did were already shown by showError.
+function reportFailure(method, requestUrl) {
+    return function (error) {
+        if (!error || !error.reported) {
+            showError(0, method, requestUrl);
+        }
+    };
 }
 
 function processSearch(root, currentPage) {
+    loadContent(root, buildSuffix(currentPage), currentPage);
+}
+
+function buildSuffix(currentPage) {
     let name = document.getElementById("inputName").value;
     let planet = document.getElementById("inputPlanet").value;
     let dateAfter = new Date();
@@ -190,13 +270,11 @@ function processSearch(root, currentPage) {
     sufix += "&pageNumber=" + (+currentPage - 1);
     sufix += "&pageSize=" + +limit;
 
-    console.log(limit);
-
     if (order === "Prod year") {
         order = "date";
     }
     sufix += "&order=" + order.toUpperCase();
-    loadContent(root, sufix, currentPage);
+    return sufix;
 }
 
 function createPaging(shipsInPage, shipsSummary, currentPage) {
@@ -225,11 +303,16 @@ function createPaging(shipsInPage, shipsSummary, currentPage) {
 }
 
 function editButtonClick(root, element, id) {
-    let objectToUpdate = JSON.parse(Get(root + "/rest/ships/" + id).responseText);
     if (document.body.contains(document.getElementById("update" + id))) {
         document.getElementById("update" + id).remove();
         return;
     }
+    Get(root + "/rest/ships/" + id).then(function (objectToUpdate) {
+        showEditRow(root, element, objectToUpdate);
+    }).catch(reportFailure("GET", root + "/rest/ships/" + id));
+}
+
+function showEditRow(root, element, objectToUpdate) {
     let tr = document.createElement("tr");
     tr.setAttribute("id", "update" + objectToUpdate.id);
 
@@ -377,8 +460,9 @@ function sendUpdate(root, id) {
     body.speed = document.getElementById("updateSpeed" + id).value;
     body.crewSize = document.getElementById("updateCrewSize" + id).value;
 
-    post(root + "/rest/ships/" + id, JSON.stringify(body));
-    loadContent(root, "", 1);
+    post(root + "/rest/ships/" + id, JSON.stringify(body)).then(function () {
+        loadContent(root, "", 1);
+    });
 }
 
 function clickCreate() {
@@ -406,29 +490,26 @@ function processCreate(root) {
     body.speed = document.getElementById("inputSpeedNew").value;
     body.crewSize = document.getElementById("inputCrewSizeNew").value;
 
-    let response = post(root + "/rest/ships/", JSON.stringify(body));
-    if (response.status === 200) {
-        document.getElementById("inputNameNew").value = "";
-        document.getElementById("inputPlanetNew").value = "";
-        document.getElementById("inputShipTypeNew").value = "Transport";
-        document.getElementById("inputProdYearNew").value = "";
-        if (document.getElementById("inlineRadioNew2").checked) {
-            document.getElementById("inlineRadioNew2").checked = false;
-            document.getElementById("inlineRadioNew1").checked = true;
-        }
-        document.getElementById("inputSpeedNew").value = "";
-        document.getElementById("inputCrewSizeNew").value = "";
-
-    }
+    post(root + "/rest/ships/", JSON.stringify(body)).then(function (response) {
+        if (response.status === 200) {
+            document.getElementById("inputNameNew").value = "";
+            document.getElementById("inputPlanetNew").value = "";
+            document.getElementById("inputShipTypeNew").value = "Transport";
+            document.getElementById("inputProdYearNew").value = "";
+            if (document.getElementById("inlineRadioNew2").checked) {
+                document.getElementById("inlineRadioNew2").checked = false;
+                document.getElementById("inlineRadioNew1").checked = true;
+            }
+            document.getElementById("inputSpeedNew").value = "";
+            document.getElementById("inputCrewSizeNew").value = "";
 
-    processSearch(root, 1);
+        }
+        processSearch(root, 1);
+    });
 }
 
 function processDelete(root, id) {
-    Delete(root + "/rest/ships/" + id);
-    processSearch(root, 1);
+    Delete(root + "/rest/ships/" + id).then(function () {
+        processSearch(root, 1);
+    });
 }
-
-    
-        
-     
\ No newline at end of file
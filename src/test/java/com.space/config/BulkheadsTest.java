@@ -0,0 +1,47 @@
+package com.space.config;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class BulkheadsTest {
+
+    private final Bulkheads bulkheads = new Bulkheads(1, 2, 10);
+
+    //test1
+    @Test
+    public void fullHeavyPartitionLeavesLightOneTest() throws Exception {
+        MockHttpServletRequest count = request("/rest/ships/count");
+        assertTrue("Тяжёлый запрос не пропущен в свободный отсек.", bulkheads.preHandle(count, new MockHttpServletResponse(), null));
+        RequestClass.unbind();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertTrue("Тяжёлый запрос пропущен в заполненный отсек.", !bulkheads.preHandle(request("/rest/ships/count"), rejected, null));
+        assertEquals("Неверный статус отклонённого запроса.", 503, rejected.getStatus());
+        assertTrue("Лёгкий запрос не пропущен при заполненном тяжёлом отсеке.", bulkheads.preHandle(request("/rest/ships/1"), new MockHttpServletResponse(), null));
+        RequestClass.unbind();
+
+        bulkheads.afterCompletion(count, new MockHttpServletResponse(), null, null);
+        assertTrue("Место в тяжёлом отсеке не освободилось после завершения запроса.", bulkheads.preHandle(request("/rest/ships/count"), new MockHttpServletResponse(), null));
+        RequestClass.unbind();
+    }
+
+    //test2
+    @Test
+    public void requestClassIsBoundWhileHandledTest() throws Exception {
+        MockHttpServletRequest listing = request("/rest/ships");
+        listing.setParameter("name", "or");
+
+        bulkheads.preHandle(listing, new MockHttpServletResponse(), null);
+        assertEquals("Класс обрабатываемого запроса не привязан к потоку.", RequestClass.HEAVY, RequestClass.current());
+        bulkheads.afterCompletion(listing, new MockHttpServletResponse(), null, null);
+        assertEquals("Класс запроса не отвязан от потока после завершения.", RequestClass.LIGHT, RequestClass.current());
+    }
+
+    private MockHttpServletRequest request(String uri) {
+        return new MockHttpServletRequest("GET", uri);
+    }
+}
@@ -0,0 +1,74 @@
+package com.space.config;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class ConcurrencyLimiterTest {
+
+    private final ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 2, 6, 100, 0.5);
+
+    //test1
+    @Test
+    public void requestsOverLimitAreRejectedTest() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue("Запрос в пределах лимита отклонён.", limiter.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), null));
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue("Запрос сверх лимита пропущен.", !limiter.preHandle(new MockHttpServletRequest(), response, null));
+        assertEquals("Неверный статус отклонённого запроса.", 503, response.getStatus());
+        assertEquals("Неверный заголовок Retry-After.", "1", response.getHeader("Retry-After"));
+    }
+
+    //test2
+    @Test
+    public void slowResponsesLowerLimitTest() {
+        MockHttpServletRequest first = start();
+        MockHttpServletRequest second = start();
+        slowDown(first);
+        slowDown(second);
+
+        finish(first);
+        finish(second);
+
+        assertEquals("Лимит должен снижаться не чаще одного раза за круг запросов.", 2, limiter.getLimit());
+    }
+
+    //test3
+    @Test
+    public void fastResponsesUnderLoadRaiseLimitTest() {
+        MockHttpServletRequest[] requests = new MockHttpServletRequest[4];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = start();
+        }
+        finish(requests[0]);
+        finish(requests[1]);
+
+        assertEquals("Быстрые ответы под нагрузкой не подняли лимит.", 6, limiter.getLimit());
+        for (int i = 2; i < requests.length; i++) {
+            finish(requests[i]);
+        }
+        assertEquals("Лимит поднялся выше максимума.", 6, limiter.getLimit());
+    }
+
+    private MockHttpServletRequest start() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        assertTrue("Запрос в пределах лимита отклонён.", limiter.preHandle(request, new MockHttpServletResponse(), null));
+        return request;
+    }
+
+    private void slowDown(MockHttpServletRequest request) {
+        long start = (Long) request.getAttribute(ConcurrencyLimiter.START_ATTRIBUTE);
+        request.setAttribute(ConcurrencyLimiter.START_ATTRIBUTE, start - TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void finish(MockHttpServletRequest request) {
+        limiter.afterCompletion(request, new MockHttpServletResponse(), null, null);
+    }
+}
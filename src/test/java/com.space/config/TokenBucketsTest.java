@@ -0,0 +1,77 @@
+package com.space.config;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class TokenBucketsTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    //test1
+    @Test
+    public void burstThenRateTest() {
+        TokenBuckets buckets = new TokenBuckets(2, 3, 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Запрос в пределах всплеска отклонён.", 0L, buckets.tryAcquire("a", 0));
+        }
+        assertEquals("Неверное время ожидания следующего токена.", SECOND / 2, buckets.tryAcquire("a", 0));
+        assertEquals("Токен не пополнился за время ожидания.", 0L, buckets.tryAcquire("a", SECOND / 2));
+        assertTrue("Запрос сверх скорости пропущен.", buckets.tryAcquire("a", SECOND / 2) > 0);
+    }
+
+    //test2
+    @Test
+    public void clientsHaveOwnBucketsTest() {
+        TokenBuckets buckets = new TokenBuckets(1, 1, 100);
+
+        assertEquals("Первый запрос клиента отклонён.", 0L, buckets.tryAcquire("a", 0));
+        assertTrue("Запрос сверх всплеска пропущен.", buckets.tryAcquire("a", 0) > 0);
+        assertEquals("Запрос другого клиента отклонён из-за чужого ведра.", 0L, buckets.tryAcquire("b", 0));
+    }
+
+    //test3
+    @Test
+    public void fullBucketsAreSweptTest() {
+        TokenBuckets buckets = new TokenBuckets(1, 1, 2);
+        buckets.tryAcquire("a", 0);
+        buckets.tryAcquire("b", 0);
+
+        assertEquals("Запрос нового клиента отклонён.", 0L, buckets.tryAcquire("c", 2 * SECOND));
+        assertEquals("Полные вёдра не удалены.", 1, buckets.size());
+        assertEquals("Новый клиент попал в общее ведро.", 0L, buckets.getOverflows());
+    }
+
+    //test4
+    @Test
+    public void clientsOverCapacityShareBucketTest() {
+        TokenBuckets buckets = new TokenBuckets(1, 1, 2);
+        buckets.tryAcquire("a", 0);
+        buckets.tryAcquire("b", 0);
+
+        assertEquals("Первый запрос в общем ведре отклонён.", 0L, buckets.tryAcquire("c", 0));
+        assertTrue("Клиенты сверх ёмкости не делят общее ведро.", buckets.tryAcquire("d", 0) > 0);
+        assertEquals("Неверное число клиентов сверх ёмкости.", 2L, buckets.getOverflows());
+    }
+
+    //test5
+    @Test
+    public void sweepRunsOncePerRefillTest() {
+        TokenBuckets buckets = new TokenBuckets(1, 1, 2);
+        buckets.tryAcquire("a", 0);
+        buckets.tryAcquire("b", 0);
+        buckets.tryAcquire("c", SECOND * 9 / 10);
+
+        // a and b are full again, but the sweep at 0.9 s was less than a refill ago.
+        buckets.tryAcquire("d", SECOND * 3 / 2);
+        assertEquals("Вёдра удалены раньше, чем через одно пополнение после прошлой очистки.", 3, buckets.size());
+        assertEquals("Неверное число клиентов сверх ёмкости.", 2L, buckets.getOverflows());
+
+        assertEquals("Запрос после очистки отклонён.", 0L, buckets.tryAcquire("e", 2 * SECOND));
+        assertEquals("Клиент после очистки попал в общее ведро.", 2L, buckets.getOverflows());
+    }
+}
@@ -0,0 +1,80 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.space.controller.utils.ShipInfoTest;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BinaryFormatTest extends AbstractTest {
+
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+    private static final MediaType CBOR = MediaType.valueOf("application/cbor");
+
+    //test1
+    @Test
+    public void getAllAsSmileTest() throws Exception {
+        assertSameShips(SMILE, new ObjectMapper(new SmileFactory()));
+    }
+
+    //test2
+    @Test
+    public void getAllAsCborTest() throws Exception {
+        assertSameShips(CBOR, new ObjectMapper(new CBORFactory()));
+    }
+
+    //test3
+    @Test
+    public void jsonETagDoesNotRevalidateCborTest() throws Exception {
+        for (String url : Arrays.asList("/rest/ships/5", "/rest/ships?pageSize=10")) {
+            MockHttpServletResponse json = mockMvc.perform(get(url)
+                    .accept(MediaType.APPLICATION_JSON_UTF8))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            assertTrue("Ответ не различается по Accept.", json.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT));
+
+            String cborETag = mockMvc.perform(get(url)
+                    .header(HttpHeaders.IF_NONE_MATCH, json.getHeader(HttpHeaders.ETAG))
+                    .accept(CBOR))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(CBOR))
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            assertTrue("ETag CBOR совпадает с ETag JSON.", !json.getHeader(HttpHeaders.ETAG).equals(cborETag));
+
+            mockMvc.perform(get(url)
+                    .header(HttpHeaders.IF_NONE_MATCH, cborETag)
+                    .accept(CBOR))
+                    .andExpect(status().isNotModified());
+        }
+    }
+
+    private void assertSameShips(MediaType mediaType, ObjectMapper binaryMapper) throws Exception {
+        String json = mockMvc.perform(get("/rest/ships?pageSize=10")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        byte[] binary = mockMvc.perform(get("/rest/ships?pageSize=10")
+                .accept(mediaType))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(mediaType))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<ShipInfoTest> expected = Arrays.asList(new ObjectMapper().readValue(json, ShipInfoTest[].class));
+        List<ShipInfoTest> actual = Arrays.asList(binaryMapper.readValue(binary, ShipInfoTest[].class));
+
+        assertEquals("Ответ в формате " + mediaType + " не совпадает с JSON.", expected, actual);
+    }
+}
@@ -0,0 +1,83 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class BulkDeleteTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private Object shipService;
+    private Object chunkSize;
+
+    @Before
+    public void setup() {
+        super.setup();
+        // Small chunks, so the 40 ships of test.sql take several of them.
+        shipService = AopTestUtils.getUltimateTargetObject(context.getBean("shipServiceImpl"));
+        chunkSize = ReflectionTestUtils.getField(shipService, "deleteChunkSize");
+        ReflectionTestUtils.setField(shipService, "deleteChunkSize", 3);
+    }
+
+    @After
+    public void restore() {
+        ReflectionTestUtils.setField(shipService, "deleteChunkSize", chunkSize);
+    }
+
+    //test1
+    @Test
+    public void deleteWithoutFilterTest() throws Exception {
+        mockMvc.perform(delete("/rest/ships")).andExpect(status().isBadRequest());
+
+        assertEquals("Удалены корабли без фильтра.", 40, count(""));
+    }
+
+    //test2
+    @Test
+    public void deleteByFilterTest() throws Exception {
+        int military = count("?shipType=MILITARY");
+
+        String deleted = mockMvc.perform(delete("/rest/ships").param("shipType", "MILITARY"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Неверное количество удалённых кораблей.", military, Integer.parseInt(deleted));
+        assertEquals("Удалены не все корабли по фильтру.", 0, count("?shipType=MILITARY"));
+        assertEquals("Удалены корабли вне фильтра.", 40 - military, count(""));
+    }
+
+    //test3
+    @Test
+    public void deletedShipsAreGoneTest() throws Exception {
+        mockMvc.perform(get("/rest/ships/1")).andExpect(status().isOk());
+        int mars = count("?planet=Mars");
+        long since = changes(0).get("since").asLong();
+
+        mockMvc.perform(delete("/rest/ships").param("planet", "Mars")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/ships/1")).andExpect(status().isNotFound());
+        JsonNode changes = changes(since);
+        assertEquals("Удаления не попали в журнал изменений.", mars, changes.get("deleted").size());
+    }
+
+    private int count(String query) throws Exception {
+        return Integer.parseInt(mockMvc.perform(get("/rest/ships/count" + query))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private JsonNode changes(long since) throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/rest/ships/changes").param("since", String.valueOf(since)).param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,140 @@
+package com.space.controller;
+
+import com.space.config.CompressionFilter;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class CompressionTest extends AbstractTest {
+
+    @Before
+    public void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(context.getBean(CompressionFilter.class))
+                .build();
+    }
+
+    //test1
+    @Test
+    public void largeResponseIsGzippedTest() throws Exception {
+        MockHttpServletResponse plain = mockMvc.perform(get("/rest/ships?pageSize=40")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        MockHttpServletResponse gzipped = mockMvc.perform(get("/rest/ships?pageSize=40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertEquals("Большой ответ не сжат gzip.", "gzip", gzipped.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("Распакованный ответ отличается от несжатого.", plain.getContentAsString(), gunzip(gzipped.getContentAsByteArray()));
+    }
+
+    //test2
+    @Test
+    public void smallResponseIsNotCompressedTest() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/ships/count")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertEquals("Маленький ответ сжат.", null, response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("Неверное содержимое маленького ответа.", "40", response.getContentAsString());
+    }
+
+    //test3
+    @Test
+    public void gzipWithZeroQualityIsNotUsedTest() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/ships?pageSize=40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertEquals("Ответ сжат кодированием с нулевым качеством.", null, response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    //test4
+    @Test
+    public void namedCodingWinsOverWildcardTest() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/rest/ships?pageSize=40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, *")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertEquals("Кодирование, названное явно, не должно перекрываться \"*\".", "deflate", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    //test5
+    @Test
+    public void compressedETagIsWeakTest() throws Exception {
+        MockHttpServletResponse plain = mockMvc.perform(get("/rest/ships?pageSize=40")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        MockHttpServletResponse gzipped = mockMvc.perform(get("/rest/ships?pageSize=40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertEquals("ETag сжатого ответа должен быть слабым.", "W/" + plain.getHeader(HttpHeaders.ETAG), gzipped.getHeader(HttpHeaders.ETAG));
+        mockMvc.perform(get("/rest/ships?pageSize=40")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, gzipped.getHeader(HttpHeaders.ETAG)))
+                .andExpect(status().isNotModified());
+    }
+
+    //test6
+    @Test
+    public void failingHandlerStillGetsCompleteStreamTest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/rest/ships");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        String written = String.join("", Collections.nCopies(100, "{\"name\":\"Orion III\"}"));
+
+        try {
+            new CompressionFilter(16, 1).doFilter(request, response, (req, res) -> {
+                res.getOutputStream().write(written.getBytes(StandardCharsets.UTF_8));
+                throw new IllegalStateException("handler failed");
+            });
+            fail("Ошибка обработчика не дошла до вызывающего.");
+        } catch (IllegalStateException e) {
+            assertEquals("Неверная ошибка обработчика.", "handler failed", e.getMessage());
+        }
+        assertEquals("Сжатый поток не завершён после ошибки обработчика.", written, gunzip(response.getContentAsByteArray()));
+    }
+
+    private String gunzip(byte[] bytes) throws Exception {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toString("UTF-8");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.space.controller;
+
+import com.space.controller.utils.TestsHelper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.Assert.assertNotNull;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ConditionalGetTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void getShipWithCurrentETagReturnsNotModifiedTest() throws Exception {
+        String eTag = eTagOf("/rest/ships/5");
+
+        mockMvc.perform(get("/rest/ships/5")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotModified());
+    }
+
+    //test2
+    @Test
+    public void getShipAfterUpdateReturnsNewContentTest() throws Exception {
+        String eTag = eTagOf("/rest/ships/6");
+
+        mockMvc.perform(post("/rest/ships/6")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/ships/6")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+    }
+
+    //test3
+    @Test
+    public void countWithCurrentETagReturnsNotModifiedTest() throws Exception {
+        String eTag = eTagOf("/rest/ships/count?shipType=MILITARY");
+
+        mockMvc.perform(get("/rest/ships/count?shipType=MILITARY")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotModified());
+    }
+
+    //test4
+    @Test
+    public void getAllAfterCreateReturnsNewContentTest() throws Exception {
+        String eTag = eTagOf("/rest/ships");
+
+        mockMvc.perform(post("/rest/ships/")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/ships")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+    }
+
+    //test5
+    @Test
+    public void getShipWithCurrentETagSkipsDatabaseTest() throws Exception {
+        String eTag = eTagOf("/rest/ships/5");
+        Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        long transactions = statistics.getTransactionCount();
+        long statements = statistics.getPrepareStatementCount();
+
+        mockMvc.perform(get("/rest/ships/5")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotModified());
+
+        assertEquals("Условный GET открыл транзакцию.", transactions, statistics.getTransactionCount());
+        assertEquals("Условный GET выполнил запрос.", statements, statistics.getPrepareStatementCount());
+    }
+
+    //test6
+    @Test
+    public void getDeletedShipWithOldETagTest() throws Exception {
+        String eTag = eTagOf("/rest/ships/7");
+
+        mockMvc.perform(delete("/rest/ships/7")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/ships/7")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isNotFound());
+    }
+
+    private String eTagOf(String url) throws Exception {
+        String eTag = mockMvc.perform(get(url)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull("Ответ на GET " + url + " не содержит ETag.", eTag);
+        return eTag;
+    }
+}
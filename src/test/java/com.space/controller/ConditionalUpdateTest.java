@@ -0,0 +1,92 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ConditionalUpdateTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void updateWithCurrentVersionTest() throws Exception {
+        String content = mockMvc.perform(post("/rest/ships/3")
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        ShipInfoTest actual = mapper.readValue(content, ShipInfoTest.class);
+        assertEquals("Версия корабля не увеличилась после обновления.", 1L, actual.version);
+    }
+
+    //test2
+    @Test
+    public void updateWithStaleVersionTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/3")
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/rest/ships/3")
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    //test3
+    @Test
+    public void updateWithInvalidIfMatchTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/3")
+                .header(HttpHeaders.IF_MATCH, "\"abc\"")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void updateWithETagOfGetTest() throws Exception {
+        String eTag = mockMvc.perform(get("/rest/ships/3"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        String newETag = mockMvc.perform(post("/rest/ships/3")
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertEquals("Ответ на обновление не содержит новый ETag.", "\"1-json\"", newETag);
+
+        mockMvc.perform(post("/rest/ships/3/operations")
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSizeDelta\": 1}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(post("/rest/ships/3/operations")
+                .header(HttpHeaders.IF_MATCH, newETag)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSizeDelta\": 1}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2-json\""));
+    }
+}
@@ -0,0 +1,57 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.model.Ship;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.DateType;
+import org.junit.Test;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * H2 has no partitions, so these tests check what MySQL prunes on: a range on the DATE column
+ * whose bounds are whole days of the same type, falling into the years the filter asks for. The
+ * bounds themselves are checked in {@code ProdDateRangeTest}.
+ */
+public class ProdDatePruningTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void prodDateIsBoundAsDateTest() {
+        EntityPersister persister = context.getBean(EntityManagerFactory.class).unwrap(SessionFactoryImplementor.class)
+                .getMetamodel().entityPersister(Ship.class);
+
+        assertTrue("prodDate передаётся не как DATE.", persister.getPropertyType("prodDate") instanceof DateType);
+    }
+
+    //test2
+    @Test
+    public void dateFilterSelectsItsYearsTest() throws Exception {
+        // after 00:00 01.01.3010, before 00:00 01.01.3011: only ships of partition p3010
+        String content = mockMvc.perform(get("/rest/ships")
+                .param("after", String.valueOf(date(3010, 1, 1, 0).getTime()))
+                .param("before", String.valueOf(date(3011, 1, 1, 0).getTime()))
+                .param("pageSize", "100"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode ships = new ObjectMapper().readTree(content);
+        assertEquals("Неверное количество кораблей 3010 года.", 3, ships.size());
+        for (JsonNode ship : ships) {
+            assertEquals("Корабль не из 3010 года.", date(3010, 1, 1, 0).getTime(), ship.get("prodDate").asLong());
+        }
+    }
+
+    private static Date date(int year, int month, int day, int hour) {
+        return new GregorianCalendar(year, month - 1, day, hour, 0).getTime();
+    }
+}
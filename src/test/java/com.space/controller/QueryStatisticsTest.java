@@ -0,0 +1,39 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class QueryStatisticsTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void sameFilterShapeReusesQueryPlanTest() throws Exception {
+        mockMvc.perform(get("/rest/ships/count?name=a&minSpeed=0.1")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        long hitsBefore = statistics().get("queryPlanCacheHitCount").asLong();
+
+        mockMvc.perform(get("/rest/ships/count?name=e&minSpeed=0.5")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk());
+        long hitsAfter = statistics().get("queryPlanCacheHitCount").asLong();
+
+        assertTrue("Запрос с той же формой фильтра не использует закэшированный план.", hitsAfter > hitsBefore);
+    }
+
+    private JsonNode statistics() throws Exception {
+        String content = mockMvc.perform(get("/rest/statistics/queries")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+}
@@ -0,0 +1,62 @@
+package com.space.controller;
+
+import com.space.config.RateLimiter;
+import org.junit.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.UUID;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "ratelimit.apiKeys=heavy-key, light-key, other-key")
+public class RateLimitTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void heavyBudgetTest() throws Exception {
+        String apiKey = "heavy-key";
+        int allowed = 0;
+        while (statusOf("/rest/ships/count", apiKey) == 200) {
+            allowed++;
+            assertTrue("Лимит запросов не срабатывает.", allowed <= 100);
+        }
+
+        assertTrue("Лимит меньше burst.", allowed >= 20);
+        mockMvc.perform(get("/rest/ships/count").header(RateLimiter.API_KEY_HEADER, apiKey))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    //test2
+    @Test
+    public void lightBudgetIsSeparateTest() throws Exception {
+        String apiKey = "light-key";
+        while (statusOf("/rest/ships/count", apiKey) == 200) {
+            // use up the heavy budget
+        }
+
+        assertEquals("Лёгкий запрос отклонён.", 200, statusOf("/rest/ships/1", apiKey));
+        assertEquals("Лимит не разделён по клиентам.", 200, statusOf("/rest/ships/count", "other-key"));
+    }
+
+    //test3
+    @Test
+    public void unknownKeysShareAddressBudgetTest() throws Exception {
+        int allowed = 0;
+        while (statusOf("/rest/ships/count", UUID.randomUUID().toString()) == 200) {
+            allowed++;
+            assertTrue("Неизвестные ключи обходят лимит.", allowed <= 100);
+        }
+
+        assertEquals("Неизвестный ключ получил отдельный лимит.", 429, statusOf("/rest/ships/count", "unknown-key"));
+    }
+
+    private int statusOf(String url, String apiKey) throws Exception {
+        return mockMvc.perform(get(url).header(RateLimiter.API_KEY_HEADER, apiKey))
+                .andReturn().getResponse().getStatus();
+    }
+}
@@ -0,0 +1,79 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class SecondLevelCacheTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void shipIsReadFromCacheTest() throws Exception {
+        perform("/rest/ships/1");
+        long hitsBefore = statistics().get("com.space.model.Ship").get("hitCount").asLong();
+
+        perform("/rest/ships/1");
+
+        long hitsAfter = statistics().get("com.space.model.Ship").get("hitCount").asLong();
+        assertTrue("Корабль не прочитан из кэша.", hitsAfter > hitsBefore);
+    }
+
+    //test2
+    @Test
+    public void countIsReadFromQueryCacheTest() throws Exception {
+        perform("/rest/ships/count?name=or");
+        long hitsBefore = statistics().get("queryCache").get("hitCount").asLong();
+
+        perform("/rest/ships/count?name=or");
+
+        long hitsAfter = statistics().get("queryCache").get("hitCount").asLong();
+        assertTrue("Результат запроса не прочитан из кэша.", hitsAfter > hitsBefore);
+    }
+
+    //test3
+    @Test
+    public void writesInvalidateCachedQueriesTest() throws Exception {
+        int before = Integer.parseInt(perform("/rest/ships/count?name=or"));
+
+        mockMvc.perform(post("/rest/ships")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"name\": \"Gorgon\", \"planet\": \"Mars\", \"shipType\": \"MERCHANT\", " +
+                        "\"prodDate\": 32503680000000, \"speed\": 0.5, \"crewSize\": 10}"))
+                .andExpect(status().isOk());
+
+        assertEquals("Кэш запросов не сброшен после записи.", before + 1, Integer.parseInt(perform("/rest/ships/count?name=or")));
+    }
+
+    //test4
+    @Test
+    public void operationsInvalidateCachedShipTest() throws Exception {
+        int crewSize = mapper.readTree(perform("/rest/ships/1")).get("crewSize").asInt();
+
+        mockMvc.perform(post("/rest/ships/1/operations")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSizeDelta\": 5}"))
+                .andExpect(status().isOk());
+
+        assertEquals("Кэш корабля не сброшен после операции.", crewSize + 5,
+                mapper.readTree(perform("/rest/ships/1")).get("crewSize").asInt());
+    }
+
+    private String perform(String url) throws Exception {
+        return mockMvc.perform(get(url).accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private JsonNode statistics() throws Exception {
+        return mapper.readTree(perform("/rest/statistics/cache"));
+    }
+}
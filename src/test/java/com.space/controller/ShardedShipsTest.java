@@ -0,0 +1,142 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.service.Shards;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {"shard.count=3", "shard.idRange=1000", "shard.placement=id"})
+public class ShardedShipsTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+    private Shards shards;
+    private List<Long> created = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        super.setup();
+        shards = context.getBean(Shards.class);
+        // test.sql only resets shard 0.
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        for (int shard = 1; shard < shards.getCount(); shard++) {
+            shards.on(shard, () -> jdbcTemplate.execute("DELETE FROM ship"));
+        }
+    }
+
+    //test1
+    @Test
+    public void createdShipsAreSpreadTest() throws Exception {
+        createShips(6);
+
+        Set<Integer> used = new HashSet<>();
+        for (Long id : created) {
+            used.add(shards.ofId(id));
+            JsonNode ship = json(get("/rest/ships/" + id));
+            assertEquals("Корабль не найден на своём шарде.", id.longValue(), ship.get("id").asLong());
+        }
+        assertEquals("Корабли не распределены по шардам.", 3, used.size());
+    }
+
+    //test2
+    @Test
+    public void countTest() throws Exception {
+        createShips(6);
+
+        assertEquals("Неверное количество кораблей.", 46, json(get("/rest/ships/count")).asInt());
+        assertEquals("Неверное количество кораблей по фильтру.", 6,
+                json(get("/rest/ships/count").param("name", "Shard")).asInt());
+    }
+
+    //test3
+    @Test
+    public void pagesAreMergedInOrderTest() throws Exception {
+        createShips(6);
+
+        JsonNode all = json(get("/rest/ships").param("order", "SPEED").param("pageSize", "100"));
+        assertEquals("Возвращены не все корабли.", 46, all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue("Корабли не отсортированы по скорости.",
+                    all.get(i - 1).get("speed").asDouble() <= all.get(i).get("speed").asDouble());
+        }
+
+        List<Long> paged = new ArrayList<>();
+        for (int page = 0; page < 7; page++) {
+            JsonNode ships = json(get("/rest/ships").param("order", "SPEED")
+                    .param("pageNumber", String.valueOf(page)).param("pageSize", "7"));
+            for (JsonNode ship : ships) {
+                paged.add(ship.get("id").asLong());
+            }
+        }
+        List<Long> expected = new ArrayList<>();
+        for (JsonNode ship : all) {
+            expected.add(ship.get("id").asLong());
+        }
+        assertEquals("Страницы не совпадают с полным списком.", expected, paged);
+    }
+
+    //test4
+    @Test
+    public void updateAndDeleteAreRoutedTest() throws Exception {
+        createShips(3);
+        long id = created.get(2);
+
+        mockMvc.perform(post("/rest/ships/" + id)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\": 700}"))
+                .andExpect(status().isOk());
+        assertEquals("Корабль не обновлён.", 700, json(get("/rest/ships/" + id)).get("crewSize").asInt());
+
+        mockMvc.perform(delete("/rest/ships/" + id)).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/ships/" + id)).andExpect(status().isNotFound());
+        assertEquals("Неверное количество кораблей.", 42, json(get("/rest/ships/count")).asInt());
+    }
+
+    //test5
+    @Test
+    public void deleteByFilterFansOutTest() throws Exception {
+        createShips(6);
+
+        String deleted = mockMvc.perform(delete("/rest/ships").param("name", "Shard"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Неверное количество удалённых кораблей.", 6, Integer.parseInt(deleted));
+        assertEquals("Неверное количество кораблей.", 40, json(get("/rest/ships/count")).asInt());
+    }
+
+    private void createShips(int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            String content = mockMvc.perform(post("/rest/ships")
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .content("{\"name\": \"Shard " + i + "\", \"planet\": \"Earth\", \"shipType\": \"MILITARY\", " +
+                            "\"prodDate\": 32998274577071, \"isUsed\": true, \"speed\": 0." + (10 + i * 13) + ", \"crewSize\": 14}"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            created.add(mapper.readTree(content).get("id").asLong());
+        }
+    }
+
+    private JsonNode json(RequestBuilder request) throws Exception {
+        return mapper.readTree(mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
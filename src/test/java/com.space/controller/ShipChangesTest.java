@@ -0,0 +1,120 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.service.ShipChangeLog;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipChangesTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void fullSyncTest() throws Exception {
+        JsonNode changes = changes(0, 1000);
+
+        assertEquals("Возвращены не все корабли.", 40, changes.get("ships").size());
+        assertEquals("Возвращены удалённые корабли.", 0, changes.get("deleted").size());
+        assertEquals("Неверный признак продолжения.", false, changes.get("hasMore").asBoolean());
+    }
+
+    //test2
+    @Test
+    public void changesSinceTest() throws Exception {
+        long since = changes(0, 1000).get("since").asLong();
+
+        mockMvc.perform(post("/rest/ships/1")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\": 700}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/rest/ships/1")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\": 800}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/ships/3")).andExpect(status().isOk());
+
+        JsonNode changes = changes(since, 100);
+        assertEquals("Изменения одного корабля не объединены.", 1, changes.get("ships").size());
+        assertEquals("Возвращено устаревшее состояние корабля.", 800, changes.get("ships").get(0).get("crewSize").asInt());
+        assertEquals("Удаление не возвращено.", 3, changes.get("deleted").get(0).asInt());
+        assertEquals("Неверная позиция.", since + 3, changes.get("since").asLong());
+    }
+
+    //test3
+    @Test
+    public void batchesTest() throws Exception {
+        JsonNode first = changes(0, 30);
+        JsonNode second = changes(first.get("since").asLong(), 30);
+
+        assertEquals("Неверный размер первой партии.", 30, first.get("ships").size());
+        assertEquals("Неверный признак продолжения.", true, first.get("hasMore").asBoolean());
+        assertEquals("Неверный размер второй партии.", 10, second.get("ships").size());
+        assertEquals("Неверный признак продолжения.", false, second.get("hasMore").asBoolean());
+    }
+
+    //test4
+    @Test
+    public void badLimitTest() throws Exception {
+        mockMvc.perform(get("/rest/ships/changes?limit=0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/ships/changes?since=-1")).andExpect(status().isBadRequest());
+    }
+
+    //test5
+    @Test
+    public void waitsForGapTest() throws Exception {
+        // Row 41 is still in flight while row 42 has committed.
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        jdbcTemplate.update("INSERT INTO ship_change(seq, shipId, deleted, createdAt) VALUES (42, 2, false, ?)",
+                System.currentTimeMillis());
+
+        JsonNode changes = changes(40, 100);
+        assertEquals("Пропуск в журнале не дождались.", 0, changes.get("ships").size());
+        assertEquals("Позиция сдвинута через пропуск.", 40L, changes.get("since").asLong());
+
+        jdbcTemplate.update("UPDATE ship_change SET createdAt = 1");
+        changes = changes(40, 100);
+        assertEquals("Старый пропуск не пропущен.", 1, changes.get("ships").size());
+        assertEquals("Неверная позиция.", 42L, changes.get("since").asLong());
+    }
+
+    //test6
+    @Test
+    public void compactionTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/1")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSize\": 700}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/ships/3")).andExpect(status().isOk());
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        jdbcTemplate.update("UPDATE ship_change SET createdAt = 1");
+
+        ReflectionTestUtils.invokeMethod(context.getBean(ShipChangeLog.class), "compact");
+
+        assertEquals("Журнал не сжат.", 39, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ship_change", Integer.class).intValue());
+        mockMvc.perform(get("/rest/ships/changes?since=40")).andExpect(status().isGone());
+        JsonNode changes = changes(0, 1000);
+        assertEquals("Полная синхронизация после сжатия неверна.", 39, changes.get("ships").size());
+        assertEquals("Возвращены удалённые корабли.", 0, changes.get("deleted").size());
+        changes(42, 100);
+    }
+
+    private JsonNode changes(long since, int limit) throws Exception {
+        String content = mockMvc.perform(get("/rest/ships/changes?since=" + since + "&limit=" + limit)
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(content);
+    }
+}
@@ -0,0 +1,102 @@
+package com.space.controller;
+
+import com.space.service.ShipChangeFeed;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipEventsTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void updateOfMatchingShipTest() throws Exception {
+        MvcResult events = subscribe("/rest/ships/events?planet=mars");
+
+        update(1, "{\"crewSize\": 700}");
+
+        String content = await(events.getResponse(), "event:update");
+        assertTrue("Событие не содержит корабль.", content.contains("\"crewSize\":700"));
+        close(events);
+    }
+
+    //test2
+    @Test
+    public void updateOfOtherShipTest() throws Exception {
+        MvcResult events = subscribe("/rest/ships/events?planet=mars");
+
+        update(2, "{\"crewSize\": 1700}");
+        update(1, "{\"crewSize\": 700}");
+
+        String content = await(events.getResponse(), "event:update");
+        assertTrue("Получено событие о корабле вне фильтра.", !content.contains("\"crewSize\":1700"));
+        assertTrue("Получено удаление корабля, которого не было в фильтре.", !content.contains("event:remove"));
+        assertEquals("Получены лишние события.", content.indexOf("event:"), content.lastIndexOf("event:"));
+        close(events);
+    }
+
+    //test3
+    @Test
+    public void shipLeavesFilterTest() throws Exception {
+        MvcResult events = subscribe("/rest/ships/events?planet=mars");
+
+        update(1, "{\"planet\": \"Venus\"}");
+
+        String content = await(events.getResponse(), "event:remove");
+        assertTrue("Событие не содержит id корабля.", content.contains("\"id\":1"));
+        close(events);
+    }
+
+    //test4
+    @Test
+    public void deleteTest() throws Exception {
+        MvcResult events = subscribe("/rest/ships/events");
+
+        mockMvc.perform(delete("/rest/ships/3")).andExpect(status().isOk());
+
+        String content = await(events.getResponse(), "event:delete");
+        assertTrue("Событие не содержит id корабля.", content.contains("\"id\":3"));
+        close(events);
+    }
+
+    private MvcResult subscribe(String url) throws Exception {
+        return mockMvc.perform(get(url).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private void update(int id, String body) throws Exception {
+        mockMvc.perform(post("/rest/ships/" + id)
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .content(body))
+                .andExpect(status().isOk());
+    }
+
+    private String await(MockHttpServletResponse response, String event) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!received(response.getContentAsString(), event) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        String content = response.getContentAsString();
+        assertTrue("Событие " + event + " не получено.", received(content, event));
+        return content;
+    }
+
+    private boolean received(String content, String event) {
+        int start = content.indexOf(event);
+        return start >= 0 && content.indexOf("\n\n", start) >= 0;
+    }
+
+    private void close(MvcResult events) {
+        events.getRequest().getAsyncContext().complete();
+        assertEquals("Подписка не отменена.", 0, context.getBean(ShipChangeFeed.class).getSubscriberCount());
+    }
+}
@@ -0,0 +1,79 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipOperationTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void incrementCrewSizeTest() throws Exception {
+        ShipInfoTest before = testsHelper.getShipInfosById(1);
+
+        ShipInfoTest actual = apply(1, "{\"crewSizeDelta\": 5}");
+
+        assertEquals("Размер экипажа не увеличился.", before.crewSize + 5, (int) actual.crewSize);
+        assertEquals("Рейтинг изменился при изменении экипажа.", before.rating, actual.rating);
+    }
+
+    //test2
+    @Test
+    public void flipIsUsedRecomputesRatingTest() throws Exception {
+        ShipInfoTest before = testsHelper.getShipInfosById(4);
+
+        ShipInfoTest actual = apply(4, "{\"isUsed\": true, \"expectedIsUsed\": false}");
+
+        assertEquals("Флаг isUsed не изменился.", true, actual.isUsed);
+        assertEquals("Рейтинг не пересчитан.", Math.round(before.rating / 2 * 100) / 100.0, actual.rating);
+    }
+
+    //test3
+    @Test
+    public void crewSizeOutOfBoundsTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/1/operations")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSizeDelta\": -9000}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void failedConditionTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/4/operations")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"isUsed\": false, \"expectedIsUsed\": true}"))
+                .andExpect(status().isConflict());
+    }
+
+    //test5
+    @Test
+    public void operationOnMissingShipTest() throws Exception {
+        mockMvc.perform(post("/rest/ships/415/operations")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content("{\"crewSizeDelta\": 1}"))
+                .andExpect(status().isNotFound());
+    }
+
+    private ShipInfoTest apply(int id, String body) throws Exception {
+        String content = mockMvc.perform(post("/rest/ships/" + id + "/operations")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .accept(MediaType.APPLICATION_JSON_UTF8)
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(content, ShipInfoTest.class);
+    }
+}
@@ -0,0 +1,60 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.space.controller.utils.ShipInfoTest;
+import com.space.controller.utils.TestsHelper;
+import org.junit.Test;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ShipStreamTest extends AbstractTest {
+
+    private TestsHelper testsHelper = new TestsHelper();
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void streamWithoutFiltersReturnsAllShipsTest() throws Exception {
+        List<ShipInfoTest> actual = stream("/rest/ships/stream");
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships/stream.",
+                testsHelper.getAllShips(), actual);
+    }
+
+    //test2
+    @Test
+    public void streamWithFilterAndOrderTest() throws Exception {
+        List<ShipInfoTest> actual = stream("/rest/ships/stream?planet=ar&order=SPEED");
+
+        List<ShipInfoTest> expected = testsHelper.getShipInfosByOrder(ShipOrder.SPEED,
+                testsHelper.getShipInfosByPlanet("ar", testsHelper.getAllShips()));
+        assertTrue("В фильтре должны быть корабли.", !expected.isEmpty());
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/ships/stream с параметрами planet и order.",
+                expected, actual);
+    }
+
+    private List<ShipInfoTest> stream(String url) throws Exception {
+        MvcResult started = mockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals("Неверный тип ответа.", "application/x-ndjson", result.getResponse().getContentType());
+
+        List<ShipInfoTest> ships = new ArrayList<>();
+        for (String line : result.getResponse().getContentAsString().split("\n")) {
+            ships.add(mapper.readValue(line, ShipInfoTest.class));
+        }
+        return ships;
+    }
+}
@@ -0,0 +1,36 @@
+package com.space.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class StartupTimelineTest extends AbstractTest {
+
+    private ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void timelineHasPhasesAndBeansTest() throws Exception {
+        String content = mockMvc.perform(get("/rest/statistics/startup")
+                .accept(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode timeline = mapper.readTree(content);
+
+        Set<String> phases = new HashSet<>();
+        for (JsonNode phase : timeline.get("phases")) {
+            phases.add(phase.get("name").asText());
+        }
+        assertTrue("Нет фазы запуска JPA.", phases.contains("jpaBootstrap"));
+        assertTrue("Нет фазы корневого контекста.", phases.contains("rootContext"));
+        assertTrue("Нет времени создания бинов.", timeline.get("slowestBeans").has("entityManagerFactory"));
+    }
+}
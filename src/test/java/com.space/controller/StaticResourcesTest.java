@@ -0,0 +1,33 @@
+package com.space.controller;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+import static org.springframework.test.util.AssertionErrors.assertNotEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class StaticResourcesTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void resourceUrlContainsContentHashTest() throws Exception {
+        String url = context.getBean(ResourceUrlProvider.class).getForLookupPath("/resources/scripts.js");
+
+        assertNotEquals("Адрес ресурса не содержит хеш содержимого.", "/resources/scripts.js", url);
+        assertTrue("Неверный формат адреса ресурса: " + url, url.matches("/resources/scripts-[0-9a-f]{32}\\.js"));
+    }
+
+    //test2
+    @Test
+    public void fingerprintedResourceIsCachedForAYearTest() throws Exception {
+        String url = context.getBean(ResourceUrlProvider.class).getForLookupPath("/resources/scripts.js");
+
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public"));
+    }
+}
@@ -15,6 +15,7 @@ public class ShipInfoTest {
     public Double speed;
     public Integer crewSize;
     public Double rating;
+    public Long version;
 
     public ShipInfoTest() {
     }
@@ -0,0 +1,38 @@
+package com.space.model;
+
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ShipEnhancementTest {
+
+    //test1
+    @Test
+    public void shipTracksItsOwnChangesTest() {
+        Ship ship = new Ship();
+        assertTrue("Ship не расширен при сборке.", ship instanceof SelfDirtinessTracker);
+        SelfDirtinessTracker tracker = (SelfDirtinessTracker) ship;
+        ship.setName("Orion III");
+        ship.setCrewSize(617);
+        tracker.$$_hibernate_clearDirtyAttributes();
+
+        ship.setCrewSize(700);
+
+        assertArrayEquals("Неверный список изменённых полей.", new String[]{"crewSize"}, tracker.$$_hibernate_getDirtyAttributes());
+    }
+
+    //test2
+    @Test
+    public void sameValueIsNotAChangeTest() {
+        Ship ship = new Ship();
+        ship.setName("Orion III");
+        ((SelfDirtinessTracker) ship).$$_hibernate_clearDirtyAttributes();
+
+        ship.setName("Orion III");
+
+        assertFalse("Запись того же значения отмечена как изменение.", ((SelfDirtinessTracker) ship).$$_hibernate_hasDirtyAttributes());
+    }
+}
@@ -0,0 +1,79 @@
+package com.space.model;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+public class ShipSerializerTest {
+
+    private final ObjectMapper reflective = new ObjectMapper()
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+
+    private final ObjectMapper generated = new ObjectMapper()
+            .registerModule(new SimpleModule()
+                    .addSerializer(Ship.class, new ShipSerializer())
+                    .addDeserializer(Ship.class, new ShipDeserializer()));
+
+    //test1
+    @Test
+    public void serializedShipMatchesReflectiveOutputTest() throws Exception {
+        Ship ship = ship();
+
+        assertEquals("Сериализация отличается от рефлексивной.", reflective.writeValueAsString(ship), generated.writeValueAsString(ship));
+    }
+
+    //test2
+    @Test
+    public void serializedEmptyShipMatchesReflectiveOutputTest() throws Exception {
+        Ship ship = new Ship();
+
+        assertEquals("Сериализация пустого корабля отличается от рефлексивной.", reflective.writeValueAsString(ship), generated.writeValueAsString(ship));
+    }
+
+    //test3
+    @Test
+    public void deserializedShipMatchesReflectiveInputTest() throws Exception {
+        String json = reflective.writeValueAsString(ship());
+
+        assertEquals("Десериализация отличается от рефлексивной.", reflective.writeValueAsString(reflective.readValue(json, Ship.class)),
+                generated.writeValueAsString(generated.readValue(json, Ship.class)));
+    }
+
+    //test4
+    @Test
+    public void deserializerCoercesLikeReflectiveMapperTest() throws Exception {
+        String json = "{\"crewSize\":\"14\",\"speed\":1,\"isUsed\":null,\"prodDate\":\"2900-01-01\"}";
+
+        assertEquals("Приведение типов отличается от рефлексивного.", reflective.writeValueAsString(reflective.readValue(json, Ship.class)),
+                generated.writeValueAsString(generated.readValue(json, Ship.class)));
+    }
+
+    //test5
+    @Test(expected = UnrecognizedPropertyException.class)
+    public void deserializerRejectsUnknownPropertyTest() throws Exception {
+        generated.readValue("{\"name\":\"Orion\",\"hull\":3}", Ship.class);
+    }
+
+    private Ship ship() {
+        Ship ship = new Ship();
+        ship.setId(7L);
+        ship.setName("Orion \"III\"");
+        ship.setPlanet("Mars");
+        ship.setShipType(ShipType.MERCHANT);
+        ship.setProdDate(new Date(32998274577071L));
+        ship.setUsed(true);
+        ship.setSpeed(0.82);
+        ship.setCrewSize(617);
+        ship.setRating(1.31);
+        ship.setVersion(3L);
+        return ship;
+    }
+}
@@ -0,0 +1,129 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.model.ShipChange;
+import com.space.model.ShipType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class AuditJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    //test1
+    @Test
+    public void recordsAreReplayedTest() throws Exception {
+        AuditJournal journal = journal(1 << 20);
+        journal.append(ShipChange.Type.CREATE, 1L, ship("Orion III"));
+        journal.append(ShipChange.Type.UPDATE, 1L, ship("Orion IV"));
+        journal.append(ShipChange.Type.DELETE, 1L, null);
+        journal.destroy();
+
+        List<AuditRecord> records = replay();
+        assertEquals("Неверное число прочитанных записей журнала.", 3, records.size());
+        assertEquals("Неверный тип первой записи.", ShipChange.Type.CREATE, records.get(0).getType());
+        assertEquals("Неверное название корабля в записи.", "Orion IV", records.get(1).getShip().getName());
+        assertEquals("Неверный тип корабля в записи.", ShipType.MERCHANT, records.get(1).getShip().getShipType());
+        assertEquals("Неверный размер экипажа в записи.", 617, records.get(1).getShip().getCrewSize());
+        assertEquals("Неверный id корабля в записи об удалении.", 1L, records.get(2).getShipId());
+        assertEquals("Запись об удалении не должна содержать корабль.", null, records.get(2).getShip());
+    }
+
+    //test2
+    @Test
+    public void segmentsRollTest() throws Exception {
+        AuditJournal journal = journal(256);
+        for (long id = 1; id <= 20; id++) {
+            journal.append(ShipChange.Type.CREATE, id, ship("Ship " + id));
+        }
+        journal.destroy();
+
+        List<AuditRecord> records = replay();
+        assertEquals("Неверное число прочитанных записей журнала.", 20, records.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals("Записи прочитаны не в порядке добавления.", i + 1L, records.get(i).getShipId());
+        }
+        assertTrue("Журнал не перешёл на следующий сегмент.", AuditJournalReader.segments(folder.getRoot().toPath()).size() > 1);
+    }
+
+    //test3
+    @Test
+    public void reopenedJournalAppendsTest() throws Exception {
+        AuditJournal first = journal(1 << 20);
+        first.append(ShipChange.Type.CREATE, 1L, ship("Orion III"));
+        first.destroy();
+        AuditJournal second = journal(1 << 20);
+        second.append(ShipChange.Type.DELETE, 1L, null);
+        second.destroy();
+
+        List<AuditRecord> records = replay();
+        assertEquals("Записи повторно открытого журнала потеряны.", 2, records.size());
+        assertEquals("Неверный тип записи, добавленной после открытия.", ShipChange.Type.DELETE, records.get(1).getType());
+    }
+
+    //test4
+    @Test
+    public void concurrentWritersOverflowingTheRingTest() throws Exception {
+        AuditJournal journal = new AuditJournal(folder.getRoot().getPath(), 1 << 20, 4, "none", 0);
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int writer = 0; writer < 4; writer++) {
+            writers.add(CompletableFuture.runAsync(() -> {
+                for (long id = 1; id <= 250; id++) {
+                    journal.append(ShipChange.Type.UPDATE, id, ship("Ship " + id));
+                }
+            }));
+        }
+        for (CompletableFuture<Void> writer : writers) {
+            writer.get();
+        }
+        journal.destroy();
+
+        assertEquals("Записи параллельных писателей потеряны.", 1000, replay().size());
+    }
+
+    //test5
+    @Test
+    public void disabledJournalTest() throws Exception {
+        AuditJournal journal = new AuditJournal("", 1 << 20, 16, "interval", 1000);
+        journal.append(ShipChange.Type.CREATE, 1L, ship("Orion III"));
+        journal.destroy();
+
+        File[] files = folder.getRoot().listFiles();
+        assertEquals("Выключенный журнал создал файлы.", 0, files == null ? 0 : files.length);
+    }
+
+    private AuditJournal journal(int segmentSize) throws Exception {
+        return new AuditJournal(folder.getRoot().getPath(), segmentSize, 16, "always", 0);
+    }
+
+    private List<AuditRecord> replay() throws Exception {
+        List<AuditRecord> records = new ArrayList<>();
+        AuditJournalReader.replay(folder.getRoot().toPath(), records::add);
+        return records;
+    }
+
+    private Ship ship(String name) {
+        Ship ship = new Ship();
+        ship.setName(name);
+        ship.setPlanet("Mars");
+        ship.setShipType(ShipType.MERCHANT);
+        ship.setProdDate(new Date(0));
+        ship.setUsed(true);
+        ship.setSpeed(0.82);
+        ship.setCrewSize(617);
+        ship.setRating(1.31);
+        ship.setVersion(0L);
+        return ship;
+    }
+}
@@ -0,0 +1,42 @@
+package com.space.service;
+
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+
+public class ProdDateRangeTest {
+
+    //test1
+    @Test
+    public void rangeOfWholeDaysTest() {
+        ProdDateRange range = ProdDateRange.of(date(3000, 1, 1, 0).getTime(), date(3011, 1, 1, 0).getTime() - 1);
+
+        assertEquals("Нижняя граница сдвинута с начала дня.", date(3000, 1, 1, 0), range.getFirst());
+        assertEquals("Верхняя граница выходит за партицию p3010.", date(3010, 12, 31, 0), range.getLast());
+    }
+
+    //test2
+    @Test
+    public void afterWithinDayTest() {
+        ProdDateRange range = ProdDateRange.of(date(2995, 6, 15, 10).getTime(), null);
+
+        assertEquals("Нижняя граница не округлена до следующего дня.", date(2995, 6, 16, 0), range.getFirst());
+        assertEquals("Без параметра before верхней границы быть не должно.", null, range.getLast());
+    }
+
+    //test3
+    @Test
+    public void beforeWithinDayTest() {
+        ProdDateRange range = ProdDateRange.of(null, date(3005, 12, 31, 10).getTime());
+
+        assertEquals("Без параметра after нижней границы быть не должно.", null, range.getFirst());
+        assertEquals("Верхняя граница не округлена до дня.", date(3005, 12, 31, 0), range.getLast());
+    }
+
+    private static Date date(int year, int month, int day, int hour) {
+        return new GregorianCalendar(year, month - 1, day, hour, 0).getTime();
+    }
+}
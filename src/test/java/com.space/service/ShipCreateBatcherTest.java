@@ -0,0 +1,111 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.validation.BadRequestException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertNotNull;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.util.AssertionErrors.fail;
+
+public class ShipCreateBatcherTest {
+
+    private final ShipCreateBatcher batcher = new ShipCreateBatcher(100, 10, 1);
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicInteger batches = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        batcher.destroy();
+    }
+
+    //test1
+    @Test
+    public void concurrentCreatesShareOneBatchTest() throws Exception {
+        Ship first = ship("Orion");
+        Ship second = ship("Hermes");
+
+        CompletableFuture<Void> one = CompletableFuture.runAsync(() -> batcher.save(first, this::writeAll, this::write));
+        CompletableFuture<Void> two = CompletableFuture.runAsync(() -> batcher.save(second, this::writeAll, this::write));
+        one.get();
+        two.get();
+
+        assertEquals("Одновременные создания записаны не одной пачкой.", 1, batches.get());
+        assertNotNull("Первый корабль не получил id.", first.getId());
+        assertNotNull("Второй корабль не получил id.", second.getId());
+    }
+
+    //test2
+    @Test
+    public void failedBatchReportsErrorToItsOwnCallerTest() throws Exception {
+        Ship good = ship("Orion");
+        Ship bad = ship("bad");
+
+        CompletableFuture<Void> one = CompletableFuture.runAsync(() -> batcher.save(good, this::writeAll, this::write));
+        CompletableFuture<Void> two = CompletableFuture.runAsync(() -> batcher.save(bad, this::writeAll, this::write));
+
+        one.get();
+        assertNotNull("Корабль из пачки с ошибкой не сохранён.", good.getId());
+        try {
+            two.get();
+        } catch (ExecutionException e) {
+            assertTrue("Вызывающий получил чужую ошибку.", e.getCause() instanceof BadRequestException);
+            return;
+        }
+        fail("Неудачное создание корабля сообщено как успешное.");
+    }
+
+    //test3
+    @Test(timeout = 5000)
+    public void writerErrorReachesEveryCallerTest() throws Exception {
+        Consumer<List<Ship>> failing = ships -> {
+            throw new AssertionError("writer failed");
+        };
+        CompletableFuture<Void> one = CompletableFuture.runAsync(() -> batcher.save(ship("Orion"), failing, this::write));
+        CompletableFuture<Void> two = CompletableFuture.runAsync(() -> batcher.save(ship("Hermes"), failing, this::write));
+
+        for (CompletableFuture<Void> result : Arrays.asList(one, two)) {
+            try {
+                result.get();
+                fail("Неудачное создание корабля сообщено как успешное.");
+            } catch (ExecutionException e) {
+                assertTrue("Вызывающий не получил ошибку записи.", e.getCause() instanceof AssertionError);
+            }
+        }
+    }
+
+    private void writeAll(List<Ship> ships) {
+        batches.incrementAndGet();
+        for (Ship ship : ships) {
+            write(ship);
+        }
+    }
+
+    private void write(Ship ship) {
+        if ("bad".equals(ship.getName())) {
+            throw new BadRequestException("bad ship");
+        }
+        if (ship.getVersion() != null) {
+            // Spring Data merges a versioned entity into a copy, the ship itself gets no id.
+            return;
+        }
+        ship.setId(ids.incrementAndGet());
+        ship.setVersion(0L);
+    }
+
+    private Ship ship(String name) {
+        Ship ship = new Ship();
+        ship.setName(name);
+        return ship;
+    }
+}
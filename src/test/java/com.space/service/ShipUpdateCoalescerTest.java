@@ -0,0 +1,68 @@
+package com.space.service;
+
+import com.space.model.Ship;
+import com.space.validation.NotFountShipException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+
+public class ShipUpdateCoalescerTest {
+
+    private final ShipUpdateCoalescer coalescer = new ShipUpdateCoalescer(200, 1);
+
+    @After
+    public void tearDown() {
+        coalescer.destroy();
+    }
+
+    //test1
+    @Test
+    public void updatesWithinWindowAreWrittenOnceTest() throws Exception {
+        AtomicInteger writes = new AtomicInteger();
+
+        CompletableFuture<Ship> first = CompletableFuture.supplyAsync(() ->
+                coalescer.update(1L, patch("Orion", null), (patch, id) -> write(writes, patch)));
+        Thread.sleep(50);
+        CompletableFuture<Ship> second = CompletableFuture.supplyAsync(() ->
+                coalescer.update(1L, patch(null, 42), (patch, id) -> write(writes, patch)));
+
+        Ship merged = first.get();
+        assertTrue("Вызывающие получили разные результаты слитого обновления.", merged == second.get());
+        assertEquals("Обновления в пределах окна записаны не один раз.", 1, writes.get());
+        assertEquals("Название из первого обновления потеряно.", "Orion", merged.getName());
+        assertEquals("Размер экипажа из второго обновления потерян.", 42, merged.getCrewSize());
+    }
+
+    //test2
+    @Test(expected = NotFountShipException.class)
+    public void writerExceptionReachesCallerTest() {
+        coalescer.update(1L, patch("Orion", null), (patch, id) -> {
+            throw new NotFountShipException();
+        });
+    }
+
+    //test3
+    @Test(expected = AssertionError.class, timeout = 5000)
+    public void writerErrorReachesCallerTest() {
+        coalescer.update(1L, patch("Orion", null), (patch, id) -> {
+            throw new AssertionError();
+        });
+    }
+
+    private Ship write(AtomicInteger writes, Ship patch) {
+        writes.incrementAndGet();
+        return patch;
+    }
+
+    private Ship patch(String name, Integer crewSize) {
+        Ship ship = new Ship();
+        ship.setName(name);
+        ship.setCrewSize(crewSize);
+        return ship;
+    }
+}
@@ -1,4 +1,6 @@
 DROP TABLE IF EXISTS ship;
+DROP TABLE IF EXISTS ship_change;
+DROP TABLE IF EXISTS ship_change_horizon;
 
 CREATE TABLE ship
 (
@@ -11,9 +13,29 @@ CREATE TABLE ship
     speed    DOUBLE      NULL,
     crewSize INT(4)      NULL,
     rating   DOUBLE      NULL,
+    version  BIGINT(20)  NOT NULL DEFAULT 0,
     PRIMARY KEY (id)
 );
 
+CREATE INDEX ship_prodDate ON ship (prodDate);
+
+CREATE TABLE ship_change
+(
+    seq      BIGINT(20)  NOT NULL AUTO_INCREMENT,
+    shipId   BIGINT(20)  NOT NULL,
+    deleted  BIT(1)      NOT NULL,
+    createdAt BIGINT(20) NOT NULL DEFAULT 0,
+    PRIMARY KEY (seq)
+);
+
+CREATE TABLE ship_change_horizon
+(
+    seq BIGINT(20) NOT NULL
+);
+
+INSERT INTO ship_change_horizon VALUES (0);
+CREATE INDEX ship_change_shipId ON ship_change (shipId, seq);
+
 INSERT INTO ship(name, planet, shipType, prodDate, isUsed, speed, crewSize, rating)
 VALUES ('Orion III', 'Mars', 'MERCHANT', '2995-01-01', true, 0.82, 617, 1.31)
      , ('Daedalus', 'Jupiter', 'MERCHANT', '3001-01-01', true, 0.94, 1619, 1.98)
@@ -54,4 +76,9 @@ VALUES ('Orion III', 'Mars', 'MERCHANT', '2995-01-01', true, 0.82, 617, 1.31)
      , ('Nemesis', 'Neptune', 'MILITARY', '2999-01-01', true, 0.13, 1390, 0.25)
      , ('Nostromo', 'Saturn', 'MERCHANT', '2991-01-01', true, 0.31, 1967, 0.43)
      , ('Tardis', 'Jupiter', 'MERCHANT', '3016-01-01', false, 0.86, 4871, 17.20)
-     , ('Star Destroyer', 'Mercury', 'MILITARY', '3017-01-01', false, 0.92, 4880, 24.53);
\ No newline at end of file
+     , ('Star Destroyer', 'Mercury', 'MILITARY', '3017-01-01', false, 0.92, 4880, 24.53);
+
+INSERT INTO ship_change(shipId, deleted)
+SELECT id, false
+FROM ship
+ORDER BY id;